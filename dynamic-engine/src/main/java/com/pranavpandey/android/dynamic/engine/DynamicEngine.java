@@ -22,12 +22,17 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
+import android.content.res.Configuration;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.os.BatteryManager;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.view.accessibility.AccessibilityEvent;
 
 import androidx.annotation.CallSuper;
@@ -35,22 +40,39 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 
+import com.pranavpandey.android.dynamic.engine.cache.DynamicActivityCache;
+import com.pranavpandey.android.dynamic.engine.cache.DynamicAppInfoCache;
 import com.pranavpandey.android.dynamic.engine.listener.DynamicEventListener;
+import com.pranavpandey.android.dynamic.engine.listener.DynamicStatePredicate;
 import com.pranavpandey.android.dynamic.engine.model.DynamicAppInfo;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEngineState;
 import com.pranavpandey.android.dynamic.engine.model.DynamicEvent;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEventId;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEventMask;
 import com.pranavpandey.android.dynamic.engine.model.DynamicHinge;
 import com.pranavpandey.android.dynamic.engine.model.DynamicPriority;
 import com.pranavpandey.android.dynamic.engine.service.DynamicStickyService;
 import com.pranavpandey.android.dynamic.engine.task.DynamicAppMonitor;
+import com.pranavpandey.android.dynamic.engine.task.DynamicEventDispatcher;
+import com.pranavpandey.android.dynamic.engine.task.DynamicStateFuture;
 import com.pranavpandey.android.dynamic.engine.util.DynamicEngineUtils;
+import com.pranavpandey.android.dynamic.engine.util.DynamicHingeClassifier;
 import com.pranavpandey.android.dynamic.util.DynamicDeviceUtils;
 import com.pranavpandey.android.dynamic.util.DynamicSdkUtils;
-import com.pranavpandey.android.dynamic.util.DynamicTaskUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service to monitor various system events to provide event specific functionality in the app.
@@ -71,6 +93,93 @@ public abstract class DynamicEngine extends DynamicStickyService
      */
     private static final String ADE_EXTRA_HEADSET_STATE = "state";
 
+    /**
+     * Default maximum latency in microseconds to batch the hinge sensor events.
+     */
+    public static final int ADE_HINGE_REPORT_LATENCY = 200000;
+
+    /**
+     * Default time in milliseconds for which a hinge state must be stable before it
+     * will be set.
+     */
+    public static final long ADE_HINGE_STABLE_DELAY = 150L;
+
+    /**
+     * Default time in milliseconds for which a headset, charging or dock transition must hold
+     * before it will be committed.
+     */
+    public static final long ADE_DEBOUNCE_WINDOW = 300L;
+
+    /**
+     * Default battery level in percent at or below which the low battery event is active.
+     */
+    public static final int ADE_BATTERY_LOW_LEVEL = 15;
+
+    /**
+     * Default hysteresis in percent above the low level to deactivate the low battery event.
+     */
+    public static final int ADE_BATTERY_HYSTERESIS = 5;
+
+    /**
+     * Startup phase to create the service and register the critical receivers.
+     */
+    public static final String ADE_PHASE_CREATE = "create";
+
+    /**
+     * Startup phase to prefetch the events priority on a background thread.
+     */
+    public static final String ADE_PHASE_PRIORITY = "priority";
+
+    /**
+     * Startup phase to build the priority tables and register the deferred receivers.
+     */
+    public static final String ADE_PHASE_RECEIVERS = "receivers";
+
+    /**
+     * Startup phase to initialize the already occurred and ongoing events.
+     */
+    public static final String ADE_PHASE_INITIALIZE = "initialize";
+
+    /**
+     * Receiver for the screen and user present events which is always registered.
+     */
+    private static final int ADE_RECEIVER_SCREEN = 0;
+
+    /**
+     * Receiver for the charging events.
+     */
+    private static final int ADE_RECEIVER_CHARGING = 1;
+
+    /**
+     * Receiver for the headset events.
+     */
+    private static final int ADE_RECEIVER_HEADSET = 2;
+
+    /**
+     * Receiver for the dock events.
+     */
+    private static final int ADE_RECEIVER_DOCK = 3;
+
+    /**
+     * Receiver for the package events.
+     */
+    private static final int ADE_RECEIVER_PACKAGE = 4;
+
+    /**
+     * Receiver for the call events.
+     */
+    private static final int ADE_RECEIVER_CALL = 5;
+
+    /**
+     * Receiver for the battery level events.
+     */
+    private static final int ADE_RECEIVER_BATTERY = 6;
+
+    /**
+     * Number of receivers which can be registered on demand.
+     */
+    private static final int ADE_RECEIVER_COUNT = 7;
+
     /**
      * Sensor manager to register listeners.
      */
@@ -81,50 +190,170 @@ public abstract class DynamicEngine extends DynamicStickyService
      */
     private KeyguardManager mKeyguardManager;
 
+    /**
+     * Scheduler shared by the background tasks of this service.
+     */
+    private volatile ScheduledExecutorService mScheduler;
+
     /**
      * Task to monitor foreground app.
      */
-    private DynamicAppMonitor mDynamicAppMonitor;
+    private volatile DynamicAppMonitor mDynamicAppMonitor;
+
+    /**
+     * {@code true} if the app monitor should be dormant as the accessibility events are
+     * available.
+     */
+    private volatile boolean mAppMonitorDormant;
+
+    /**
+     * Cache to store the dynamic app info for the packages.
+     */
+    private DynamicAppInfoCache mAppInfoCache;
+
+    /**
+     * Cache to store the activity components for the accessibility events.
+     */
+    private DynamicActivityCache mActivityCache;
+
+    /**
+     * Configuration to detect the locale changes.
+     */
+    private Configuration mConfiguration;
+
+    /**
+     * Dispatcher to deliver the listener callbacks.
+     */
+    private DynamicEventDispatcher mEventDispatcher;
+
+    /**
+     * Handler to perform the delayed operations on the main thread.
+     */
+    private Handler mHandler;
+
+    /**
+     * {@code true} if this service has been destroyed.
+     * <p>The work posted from the background threads will be ignored after that.
+     */
+    private volatile boolean mDestroyed;
+
+    /**
+     * Debouncers to suppress the flapping transitions for every event, if supported.
+     */
+    private final EventDebouncer[] mDebouncers = new EventDebouncer[DynamicEventId.COUNT];
+
+    /**
+     * Hinge angle sensor, if supported by the device.
+     */
+    private Sensor mHingeSensor;
+
+    /**
+     * {@code true} if the hinge sensor listener is registered.
+     */
+    private boolean mHingeListening;
+
+    /**
+     * Classifier to convert the hinge angle into a hinge state.
+     */
+    private final DynamicHingeClassifier mHingeClassifier = new DynamicHingeClassifier();
+
+    /**
+     * Maximum latency in microseconds to batch the hinge sensor events.
+     */
+    private int mHingeReportLatency = ADE_HINGE_REPORT_LATENCY;
+
+    /**
+     * Time in milliseconds for which a hinge state must be stable before it will be set.
+     * <p>It is measured with the sensor event timestamps.
+     */
+    private long mHingeStableDelay = ADE_HINGE_STABLE_DELAY;
+
+    /**
+     * Hinge state waiting to become stable.
+     */
+    private @DynamicHinge int mPendingHinge = DynamicHinge.UNKNOWN;
 
     /**
-     * Broadcast receiver to receive special events.
+     * Sensor timestamp in nanoseconds at which the pending hinge state was first reported.
      */
-    private SpecialEventReceiver mSpecialEventReceiver;
+    private long mPendingHingeTime;
 
     /**
-     * The dynamic hinge state.
+     * Runnable to set the pending hinge state once it is stable and no other sample has
+     * been reported.
      */
-    private @DynamicHinge int mHinge;
+    private final Runnable mHingeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            @DynamicHinge int hinge = mPendingHinge;
+            mPendingHinge = DynamicHinge.UNKNOWN;
+
+            setHinge(hinge);
+        }
+    };
+
+    /**
+     * Broadcast receivers to receive special events which are registered on demand.
+     * <p>They must be accessed only on the main thread.
+     */
+    private BroadcastReceiver[] mSpecialEventReceivers;
+
+    /**
+     * Runnable to update the special event receivers on the main thread.
+     */
+    private final Runnable mReceiversRunnable = new Runnable() {
+        @Override
+        public void run() {
+            updateReceivers();
+        }
+    };
+
+    /**
+     * Battery level in percent at or below which the low battery event is active.
+     */
+    private volatile int mBatteryLowLevel = ADE_BATTERY_LOW_LEVEL;
+
+    /**
+     * Hysteresis in percent above the low level to deactivate the low battery event.
+     */
+    private volatile int mBatteryHysteresis = ADE_BATTERY_HYSTERESIS;
+
+    /**
+     * Lock to update the low battery state along with its trigger level.
+     */
+    private final Object mBatteryLock = new Object();
 
     /**
-     * {@code true} if the device is on call. Either ringing or answered.
+     * {@code true} if the low battery event is active.
      */
-    private boolean mCall;
+    private volatile boolean mBatteryLow;
 
     /**
-     * {@code true} if the device screen is off.
+     * Battery level in percent at which the low battery event will be toggled.
      */
-    private boolean mScreenOff;
+    private volatile int mBatteryTrigger = ADE_BATTERY_LOW_LEVEL;
 
     /**
-     * {@code true} if the device is in the locked state or the lock screen is shown.
+     * The last received battery level in percent.
      */
-    private boolean mLocked;
+    private volatile int mBatteryLevel = -1;
 
     /**
-     * {@code true} if the device is connected to a headset or a audio output device.
+     * Immutable snapshot of the engine state which is swapped atomically on every change.
      */
-    private boolean mHeadset;
+    private final AtomicReference<DynamicEngineState> mState =
+            new AtomicReference<>(DynamicEngineState.EMPTY);
 
     /**
-     * {@code true} if the device is charging or connected to a power source.
+     * Lock to enqueue the notifications of a committed state in the version order.
      */
-    private boolean mCharging;
+    private final Object mNotifyLock = new Object();
 
     /**
-     * {@code true} if the device is docked.
+     * The last engine state for which the listeners have been notified.
+     * <p>It must be accessed while holding the {@link #mNotifyLock}.
      */
-    private boolean mDocked;
+    private DynamicEngineState mNotifiedState = DynamicEngineState.EMPTY;
 
     /**
      * Array list to store the events priority.
@@ -132,86 +361,1425 @@ public abstract class DynamicEngine extends DynamicStickyService
     private List<String> mEventsPriority;
 
     /**
-     * Hash map to store the active events.
+     * Highest priority event for every possible combination of the active events.
+     */
+    private volatile String[] mHighestEvents;
+
+    /**
+     * Read-only list of the current events for every possible combination of the
+     * active events.
+     */
+    private volatile List<List<String>> mCurrentEvents;
+
+    /**
+     * The resolved highest priority event.
+     */
+    private final AtomicReference<String> mHighestEvent =
+            new AtomicReference<>(DynamicEvent.NONE);
+
+    /**
+     * Pending changes of the state transaction for every thread.
+     * <p>Each thread has its own transaction, so that the concurrent transactions will not
+     * overwrite each other.
+     */
+    private final ThreadLocal<StateChange> mTransaction = new ThreadLocal<>();
+
+    /**
+     * Listeners subscribed to the events along with their interest mask.
      */
-    private Map<String, String> mEventsMap;
+    private final List<Subscriber> mSubscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Duration in milliseconds of every startup phase in the order of completion.
+     */
+    private final Map<String, Long> mStartupTimings = new LinkedHashMap<>();
+
+    /**
+     * Futures waiting for a state which matches their predicate.
+     */
+    private final List<DynamicStateFuture> mStateFutures = new CopyOnWriteArrayList<>();
 
     @Override
     public void onCreate() {
+        final long startTime = SystemClock.elapsedRealtime();
         super.onCreate();
 
-        mSensorManager = ContextCompat.getSystemService(this, SensorManager.class);
-        mKeyguardManager = ContextCompat.getSystemService(this, KeyguardManager.class);
-        mDynamicAppMonitor = new DynamicAppMonitor(this);
-        mSpecialEventReceiver = new SpecialEventReceiver();
+        mAppInfoCache = new DynamicAppInfoCache(this);
+        mActivityCache = new DynamicActivityCache(this);
+        mConfiguration = new Configuration(getResources().getConfiguration());
+        mHandler = new Handler(Looper.getMainLooper());
+        mDebouncers[DynamicEventId.HEADSET] = new EventDebouncer(DynamicEventId.HEADSET);
+        mDebouncers[DynamicEventId.CHARGING] = new EventDebouncer(DynamicEventId.CHARGING);
+        mDebouncers[DynamicEventId.DOCK] = new EventDebouncer(DynamicEventId.DOCK);
+        getScheduler();
+        mEventDispatcher = onCreateEventDispatcher();
+        mSpecialEventReceivers = new BroadcastReceiver[ADE_RECEIVER_COUNT];
+
+        setReceiverRegistered(ADE_RECEIVER_SCREEN, true);
+        prefetchEventsPriority();
+        addStartupTiming(ADE_PHASE_CREATE, startTime);
+    }
+
+    /**
+     * Load the events priority on the scheduler and then build the priority tables and
+     * register the deferred receivers on the main thread.
+     */
+    private void prefetchEventsPriority() {
+        try {
+            getScheduler().execute(new Runnable() {
+                @Override
+                public void run() {
+                    final long startTime = SystemClock.elapsedRealtime();
+                    DynamicPriority.getEventsPriority(DynamicEngine.this);
+                    addStartupTiming(ADE_PHASE_PRIORITY, startTime);
+
+                    mHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (mDestroyed) {
+                                return;
+                            }
+
+                            final long startTime = SystemClock.elapsedRealtime();
+                            updateEventsPriority();
+                            addStartupTiming(ADE_PHASE_RECEIVERS, startTime);
+                        }
+                    });
+                }
+            });
+        } catch (Exception e) {
+            updateEventsPriority();
+        }
+    }
 
-        ContextCompat.registerReceiver(this, getSpecialEventReceiver(),
-                DynamicEngineUtils.getEventsIntentFilter(), ContextCompat.RECEIVER_EXPORTED);
-        ContextCompat.registerReceiver(this, getSpecialEventReceiver(),
-                DynamicEngineUtils.getPackageIntentFilter(), ContextCompat.RECEIVER_EXPORTED);
-        ContextCompat.registerReceiver(this, getSpecialEventReceiver(),
-                DynamicEngineUtils.getCallIntentFilter(), ContextCompat.RECEIVER_EXPORTED);
-        updateEventsPriority();
+    /**
+     * Record the duration of a startup phase.
+     *
+     * @param phase The startup phase to be recorded.
+     * @param startTime The elapsed realtime at which the phase was started.
+     */
+    private void addStartupTiming(@NonNull String phase, long startTime) {
+        synchronized (mStartupTimings) {
+            mStartupTimings.put(phase, SystemClock.elapsedRealtime() - startTime);
+        }
+    }
 
-        mEventsMap = new LinkedHashMap<>();
-        updateEventsMap(DynamicEvent.NONE, true);
+    /**
+     * Returns the duration of every startup phase in the order of completion.
+     *
+     * @return The read-only map of the startup phases and their duration in milliseconds.
+     *
+     * @see #ADE_PHASE_CREATE
+     * @see #ADE_PHASE_PRIORITY
+     * @see #ADE_PHASE_RECEIVERS
+     * @see #ADE_PHASE_INITIALIZE
+     */
+    public @NonNull Map<String, Long> getStartupTimings() {
+        synchronized (mStartupTimings) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(mStartupTimings));
+        }
     }
 
     /**
      * Initialize special events and check for some already occurred and ongoing events.
      */
     public void initializeEvents() {
-        if (DynamicDeviceUtils.hasHingeFeature(this)) {
-            getSensorManager().registerListener(this,
-                    getSensorManager().getDefaultSensor(Sensor.TYPE_HINGE_ANGLE),
-                    SensorManager.SENSOR_DELAY_NORMAL);
+        final long startTime = SystemClock.elapsedRealtime();
+
+        initializeHinge();
+        Boolean charging = probeEvent(DynamicEventId.CHARGING);
+        Boolean headset = probeEvent(DynamicEventId.HEADSET);
+        Boolean docked = probeEvent(DynamicEventId.DOCK);
+
+        commitInitialEvents(charging != null ? charging : isCharging(),
+                headset != null ? headset : isHeadset(), docked != null ? docked : isDocked());
+        addStartupTiming(ADE_PHASE_INITIALIZE, startTime);
+    }
+
+    /**
+     * Initialize special events asynchronously by checking the already occurred and ongoing
+     * events on the scheduler.
+     * <p>The initialize callback will be delivered only once on the main thread after all the
+     * checks are complete, or with a partial result after the timeout. The checks completed
+     * after the timeout will be applied as the regular state changes.
+     * <p>The hinge sensor will be registered on the main thread while the checks are running.
+     *
+     * @param timeout The timeout in milliseconds to deliver a partial result.
+     *                <p>{@code 0} or less to wait for all the checks.
+     *
+     * @see DynamicEventListener#onInitialize(boolean, boolean, boolean)
+     */
+    public void initializeEventsAsync(long timeout) {
+        final long startTime = SystemClock.elapsedRealtime();
+        final int[] events = new int[] { DynamicEventId.CHARGING,
+                DynamicEventId.HEADSET, DynamicEventId.DOCK };
+        final Boolean[] results = new Boolean[events.length];
+        final AtomicInteger remaining = new AtomicInteger(events.length);
+        final AtomicBoolean delivered = new AtomicBoolean();
+
+        final Runnable deliver = new Runnable() {
+            @Override
+            public void run() {
+                if (mDestroyed || !delivered.compareAndSet(false, true)) {
+                    return;
+                }
+
+                Boolean charging;
+                Boolean headset;
+                Boolean docked;
+                synchronized (results) {
+                    charging = results[0];
+                    headset = results[1];
+                    docked = results[2];
+                }
+
+                commitInitialEvents(charging != null ? charging : isCharging(),
+                        headset != null ? headset : isHeadset(),
+                        docked != null ? docked : isDocked());
+                addStartupTiming(ADE_PHASE_INITIALIZE, startTime);
+            }
+        };
+
+        ScheduledExecutorService scheduler = getScheduler();
+        for (int i = 0; i < events.length; i++) {
+            final int index = i;
+            scheduler.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Boolean probe;
+                    try {
+                        probe = probeEvent(events[index]);
+                    } catch (Exception e) {
+                        probe = null;
+                    }
+
+                    final Boolean result = probe;
+                    synchronized (results) {
+                        results[index] = result;
+                    }
+
+                    if (delivered.get()) {
+                        if (result != null) {
+                            mHandler.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (!mDestroyed) {
+                                        setEventState(events[index], result);
+                                    }
+                                }
+                            });
+                        }
+                    } else if (remaining.decrementAndGet() == 0) {
+                        mHandler.post(deliver);
+                    }
+                }
+            });
+        }
+
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!mDestroyed) {
+                    initializeHinge();
+                }
+            }
+        });
+
+        if (timeout > 0) {
+            mHandler.postDelayed(deliver, timeout);
+        }
+    }
+
+    /**
+     * Initialize the hinge sensor if it is supported by the device.
+     */
+    private void initializeHinge() {
+        if (DynamicSdkUtils.is30() && DynamicDeviceUtils.hasHingeFeature(this)) {
+            mHingeSensor = getSensorManager().getDefaultSensor(Sensor.TYPE_HINGE_ANGLE);
+        }
+
+        if (mHingeSensor != null) {
+            updateHingeSensor();
         } else {
             setHinge(DynamicHinge.UNKNOWN);
         }
+    }
+
+    /**
+     * Check the status of an already occurred or ongoing event from its sticky broadcast.
+     * <p>It also reads the battery level along with the charging event.
+     *
+     * @param eventId The identifier of the event to be checked.
+     *
+     * @return {@code true} if the event is active, or {@code null} if it is unknown.
+     */
+    private @Nullable Boolean probeEvent(@DynamicEventId int eventId) {
+        switch (eventId) {
+            case DynamicEventId.CHARGING:
+                Intent chargingIntent = ContextCompat.registerReceiver(this, null,
+                        new IntentFilter(Intent.ACTION_BATTERY_CHANGED),
+                        ContextCompat.RECEIVER_EXPORTED);
+                if (chargingIntent != null) {
+                    int status = chargingIntent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+                    mBatteryLevel = getBatteryLevel(chargingIntent);
+
+                    return status == BatteryManager.BATTERY_STATUS_CHARGING
+                            || status == BatteryManager.BATTERY_STATUS_FULL;
+                }
+                break;
+            case DynamicEventId.HEADSET:
+                Intent headsetIntent = ContextCompat.registerReceiver(this, null,
+                        new IntentFilter(Intent.ACTION_HEADSET_PLUG),
+                        ContextCompat.RECEIVER_EXPORTED);
+                if (headsetIntent != null) {
+                    return headsetIntent.getIntExtra(ADE_EXTRA_HEADSET_STATE, -1) == 1;
+                }
+                break;
+            case DynamicEventId.DOCK:
+                Intent dockIntent = ContextCompat.registerReceiver(this, null,
+                        new IntentFilter(Intent.ACTION_DOCK_EVENT),
+                        ContextCompat.RECEIVER_EXPORTED);
+                if (dockIntent != null) {
+                    return dockIntent.getIntExtra(Intent.EXTRA_DOCK_STATE, -1)
+                            != Intent.EXTRA_DOCK_STATE_UNDOCKED;
+                }
+                break;
+        }
+
+        return null;
+    }
+
+    /**
+     * Commit the initial status of the events and deliver the initialize callback.
+     *
+     * @param charging {@code true} if the device is charging or connected to a power source.
+     * @param headset {@code true} if the device is connected to a headset or a audio output
+     *                device.
+     * @param docked {@code true} if the device is docked.
+     */
+    private void commitInitialEvents(final boolean charging,
+            final boolean headset, final boolean docked) {
+        boolean batteryLow;
+        synchronized (mBatteryLock) {
+            batteryLow = mBatteryLevel >= 0 && mBatteryLevel <= mBatteryLowLevel;
+            mBatteryLow = batteryLow;
+            mBatteryTrigger = batteryLow
+                    ? mBatteryLowLevel + mBatteryHysteresis : mBatteryLowLevel;
+        }
+
+        commitState(new StateChange()
+                .setEvent(DynamicEventId.BATTERY, batteryLow)
+                .setFlag(DynamicEngineState.FLAG_CHARGING, DynamicEventId.CHARGING, charging)
+                .setFlag(DynamicEngineState.FLAG_HEADSET, DynamicEventId.HEADSET, headset)
+                .setFlag(DynamicEngineState.FLAG_DOCKED, DynamicEventId.DOCK, docked), false);
+
+        dispatchEvent(DynamicEventMask.INITIALIZE, new EventCallback() {
+            @Override
+            void onEvent(@NonNull DynamicEventListener listener) {
+                listener.onInitialize(charging, headset, docked);
+            }
+        });
+    }
+
+    /**
+     * Update the events priority.
+     */
+    public void updateEventsPriority() {
+        List<String> eventsPriority = DynamicPriority.getEventsPriority(this);
+        if (eventsPriority == mEventsPriority && mHighestEvents != null) {
+            return;
+        }
+
+        String[] highestEvents = new String[1 << DynamicEventId.COUNT];
+        List<List<String>> currentEvents = new ArrayList<>(highestEvents.length);
+
+        for (int mask = 0; mask < highestEvents.length; mask++) {
+            List<String> events = new ArrayList<>();
+            events.add(DynamicEvent.NONE);
+
+            for (String event : eventsPriority) {
+                int eventId = DynamicEngineUtils.getEventId(event);
+                if (eventId != DynamicEventId.NONE && (mask & (1 << eventId)) != 0) {
+                    events.add(event);
+                }
+            }
+
+            highestEvents[mask] = events.get(events.size() - 1);
+            currentEvents.add(Collections.unmodifiableList(events));
+        }
+
+        mEventsPriority = eventsPriority;
+        mCurrentEvents = currentEvents;
+        mHighestEvents = highestEvents;
+
+        synchronized (mNotifyLock) {
+            updateHighestPriorityEvent(mNotifiedState);
+        }
+        updateReceivers();
+    }
+
+    /**
+     * Register or unregister the special event receivers according to the events priority
+     * and the overridden callbacks.
+     * <p>Only the receivers required by this service will be registered to avoid the
+     * unnecessary process wakeups.
+     * <p>It can be called from any thread and the update will be posted on the main thread
+     * if required.
+     */
+    public void updateReceivers() {
+        if (mSpecialEventReceivers == null || mDestroyed) {
+            return;
+        }
+
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mHandler.removeCallbacks(mReceiversRunnable);
+            mHandler.post(mReceiversRunnable);
+            return;
+        }
+
+        for (int receiver = 0; receiver < ADE_RECEIVER_COUNT; receiver++) {
+            setReceiverRegistered(receiver, isReceiverRequired(receiver));
+        }
+    }
+
+    /**
+     * Register or unregister a special event receiver.
+     *
+     * @param receiver The receiver to be updated.
+     * @param registered {@code true} to register the receiver.
+     */
+    private void setReceiverRegistered(int receiver, boolean registered) {
+        if (registered && mSpecialEventReceivers[receiver] == null) {
+            mSpecialEventReceivers[receiver] = receiver == ADE_RECEIVER_BATTERY
+                    ? new BatteryLevelReceiver() : new SpecialEventReceiver();
+
+            ContextCompat.registerReceiver(this, mSpecialEventReceivers[receiver],
+                    getReceiverIntentFilter(receiver), ContextCompat.RECEIVER_EXPORTED);
+        } else if (!registered && mSpecialEventReceivers[receiver] != null) {
+            try {
+                unregisterReceiver(mSpecialEventReceivers[receiver]);
+            } catch (Exception ignored) {
+            }
+
+            mSpecialEventReceivers[receiver] = null;
+        }
+    }
 
-        Intent chargingIntent = ContextCompat.registerReceiver(this, null,
-                new IntentFilter(Intent.ACTION_BATTERY_CHANGED), ContextCompat.RECEIVER_EXPORTED);
-        if (chargingIntent != null) {
-            int status = chargingIntent.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
-            mCharging = status == BatteryManager.BATTERY_STATUS_CHARGING ||
-                    status == BatteryManager.BATTERY_STATUS_FULL;
+    /**
+     * Checks whether a special event receiver is required by this service.
+     *
+     * @param receiver The receiver to be checked.
+     *
+     * @return {@code true} if the receiver is required by this service.
+     */
+    private boolean isReceiverRequired(int receiver) {
+        switch (receiver) {
+            case ADE_RECEIVER_CHARGING:
+                return isEventRequired(DynamicEvent.CHARGING, DynamicEventMask.CHARGING,
+                        "onChargingStateChange", boolean.class);
+            case ADE_RECEIVER_HEADSET:
+                return isEventRequired(DynamicEvent.HEADSET, DynamicEventMask.HEADSET,
+                        "onHeadsetStateChange", boolean.class);
+            case ADE_RECEIVER_DOCK:
+                return isEventRequired(DynamicEvent.DOCK, DynamicEventMask.DOCK,
+                        "onDockStateChange", boolean.class);
+            case ADE_RECEIVER_PACKAGE:
+                return (mDynamicAppMonitor != null && mDynamicAppMonitor.isRunning())
+                        || (getSubscribedEvents() & DynamicEventMask.PACKAGE) != 0
+                        || isCallbackOverridden("onPackageUpdated",
+                                DynamicAppInfo.class, boolean.class)
+                        || isCallbackOverridden("onPackageRemoved", String.class);
+            case ADE_RECEIVER_CALL:
+                return isEventRequired(DynamicEvent.CALL, DynamicEventMask.CALL,
+                        "onCallStateChange", boolean.class);
+            case ADE_RECEIVER_BATTERY:
+                return isEventRequired(DynamicEvent.BATTERY, DynamicEventMask.BATTERY,
+                        "onBatteryStateChange", boolean.class);
+            case ADE_RECEIVER_SCREEN:
+            default:
+                return true;
         }
+    }
+
+    /**
+     * Checks whether an event is required by this service.
+     *
+     * @param event The event to be checked.
+     * @param mask The interest mask for the event.
+     * @param callback The name of the listener callback for the event.
+     * @param parameterTypes The parameter types of the listener callback.
+     *
+     * @return {@code true} if the event is in the events priority, a subscriber is interested
+     *         in it or its callback has been overridden.
+     */
+    private boolean isEventRequired(@DynamicEvent @NonNull String event,
+            @DynamicEventMask int mask, @NonNull String callback,
+            @NonNull Class<?>... parameterTypes) {
+        return (mEventsPriority != null && mEventsPriority.contains(event))
+                || (getSubscribedEvents() & mask) != 0
+                || isCallbackOverridden(callback, parameterTypes);
+    }
 
-        Intent headsetIntent = ContextCompat.registerReceiver(this, null,
-                new IntentFilter(Intent.ACTION_HEADSET_PLUG), ContextCompat.RECEIVER_EXPORTED);
-        if (headsetIntent != null) {
-            mHeadset = headsetIntent.getIntExtra(ADE_EXTRA_HEADSET_STATE, -1) == 1;
+    /**
+     * Checks whether a listener callback has been overridden.
+     * <p>A custom listener will be checked against the default callbacks of the
+     * {@link DynamicEventListener} and it will return {@code true} if the callback cannot
+     * be checked.
+     *
+     * @param callback The name of the listener callback.
+     * @param parameterTypes The parameter types of the listener callback.
+     *
+     * @return {@code true} if the listener callback has been overridden.
+     */
+    private boolean isCallbackOverridden(@NonNull String callback,
+            @NonNull Class<?>... parameterTypes) {
+        final DynamicEventListener listener = getSpecialEventListener();
+
+        try {
+            return listener.getClass().getMethod(callback, parameterTypes).getDeclaringClass()
+                    != (listener == this ? DynamicEngine.class : DynamicEventListener.class);
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    /**
+     * Returns the intent filter for a special event receiver.
+     *
+     * @param receiver The receiver to get the intent filter.
+     *
+     * @return The intent filter for the special event receiver.
+     */
+    private @NonNull IntentFilter getReceiverIntentFilter(int receiver) {
+        switch (receiver) {
+            case ADE_RECEIVER_CHARGING:
+                return DynamicEngineUtils.getChargingIntentFilter();
+            case ADE_RECEIVER_HEADSET:
+                return DynamicEngineUtils.getHeadsetIntentFilter();
+            case ADE_RECEIVER_DOCK:
+                return DynamicEngineUtils.getDockIntentFilter();
+            case ADE_RECEIVER_PACKAGE:
+                return DynamicEngineUtils.getPackageIntentFilter();
+            case ADE_RECEIVER_CALL:
+                return DynamicEngineUtils.getCallIntentFilter();
+            case ADE_RECEIVER_BATTERY:
+                return DynamicEngineUtils.getBatteryIntentFilter();
+            case ADE_RECEIVER_SCREEN:
+            default:
+                return DynamicEngineUtils.getScreenIntentFilter();
+        }
+    }
+
+    /**
+     * Get the events priority used by this service.
+     *
+     * @return The events priority from the lowest to the highest.
+     */
+    public @NonNull List<String> getEventsPriority() {
+        if (mEventsPriority == null) {
+            updateEventsPriority();
+        }
+
+        return mEventsPriority;
+    }
+
+    /**
+     * Update the status of an event.
+     *
+     * @param event The event to update the status.
+     * @param active {@code true} to if the event is currently active.
+     */
+    public void updateEventsMap(@DynamicEvent @NonNull String event, boolean active) {
+        updateEventsMap(DynamicEngineUtils.getEventId(event), active);
+    }
+
+    /**
+     * Update the status of an event by using its identifier.
+     *
+     * @param eventId The identifier of the event to update the status.
+     * @param active {@code true} to if the event is currently active.
+     */
+    public void updateEventsMap(@DynamicEventId int eventId, boolean active) {
+        if (eventId < 0 || eventId >= DynamicEventId.COUNT) {
+            return;
+        }
+
+        StateChange change = beginChange();
+        change.setEvent(eventId, active);
+        endChange(change);
+    }
+
+    /**
+     * Checks whether an event is currently active.
+     *
+     * @param eventId The identifier of the event to be checked.
+     *
+     * @return {@code true} if the event is currently active.
+     */
+    public boolean isEventActive(@DynamicEventId int eventId) {
+        return getState().isEventActive(eventId);
+    }
+
+    /**
+     * Returns the current snapshot of the engine state.
+     * <p>It can be called from any thread and the returned state will never change.
+     *
+     * @return The current snapshot of the engine state.
+     */
+    public @NonNull DynamicEngineState getState() {
+        return mState.get();
+    }
+
+    /**
+     * Returns the version of the current engine state.
+     *
+     * @return The version of the current engine state.
+     */
+    public long getStateVersion() {
+        return getState().getVersion();
+    }
+
+    /**
+     * Checks whether the engine state has been changed since a version.
+     *
+     * @param version The version to be compared.
+     *
+     * @return {@code true} if the engine state has been changed since the supplied version.
+     */
+    public boolean isStateChanged(long version) {
+        return getState().isNewer(version);
+    }
+
+    /**
+     * Returns a future which will be completed with the first engine state that matches
+     * the supplied predicate.
+     * <p>It will be completed by the state transitions of this service, so the waiting
+     * threads will not use any CPU.
+     *
+     * @param predicate The predicate to test the engine state.
+     * @param timeout The timeout in milliseconds after which the future will be completed
+     *                with {@code null}.
+     *                <p>{@code 0} or less to wait until the state matches.
+     *
+     * @return The future which will be completed with the matched engine state.
+     */
+    public @NonNull DynamicStateFuture awaitStateAsync(
+            @NonNull DynamicStatePredicate predicate, long timeout) {
+        final DynamicStateFuture future = new DynamicStateFuture(predicate);
+
+        mStateFutures.add(future);
+        if (future.offer(getState())) {
+            mStateFutures.remove(future);
+            return future;
+        }
+
+        if (timeout > 0) {
+            try {
+                getScheduler().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        future.complete(null);
+                        mStateFutures.remove(future);
+                    }
+                }, timeout, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                future.complete(null);
+                mStateFutures.remove(future);
+            }
+        }
+
+        return future;
+    }
+
+    /**
+     * Returns a future which will be completed when the engine state is changed since
+     * a version.
+     *
+     * @param version The version to be compared.
+     * @param timeout The timeout in milliseconds after which the future will be completed
+     *                with {@code null}.
+     *                <p>{@code 0} or less to wait until the state is changed.
+     *
+     * @return The future which will be completed with the changed engine state.
+     *
+     * @see #getStateVersion()
+     */
+    public @NonNull DynamicStateFuture awaitStateChangeAsync(final long version, long timeout) {
+        return awaitStateAsync(new DynamicStatePredicate() {
+            @Override
+            public boolean test(@NonNull DynamicEngineState state) {
+                return state.isNewer(version);
+            }
+        }, timeout);
+    }
+
+    /**
+     * Block the current thread until the engine state matches the supplied predicate.
+     * <p>It must not be called from the main thread as the state transitions are
+     * performed on it.
+     *
+     * @param predicate The predicate to test the engine state.
+     * @param timeout The maximum time to wait in milliseconds.
+     *                <p>{@code 0} or less to wait until the state matches.
+     *
+     * @return The matched engine state, or {@code null} if the timeout has been elapsed.
+     *
+     * @throws InterruptedException If the current thread has been interrupted while waiting.
+     */
+    public @Nullable DynamicEngineState awaitState(@NonNull DynamicStatePredicate predicate,
+            long timeout) throws InterruptedException {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("Cannot wait for the state on the main thread.");
+        }
+
+        DynamicStateFuture future = awaitStateAsync(predicate, 0);
+        try {
+            return future.await(timeout);
+        } finally {
+            future.cancel(false);
+            mStateFutures.remove(future);
+        }
+    }
+
+    /**
+     * Block the current thread until the engine state is changed since a version.
+     * <p>It must not be called from the main thread as the state transitions are
+     * performed on it.
+     *
+     * @param version The version to be compared.
+     * @param timeout The maximum time to wait in milliseconds.
+     *                <p>{@code 0} or less to wait until the state is changed.
+     *
+     * @return The changed engine state, or {@code null} if the timeout has been elapsed.
+     *
+     * @throws InterruptedException If the current thread has been interrupted while waiting.
+     *
+     * @see #getStateVersion()
+     */
+    public @Nullable DynamicEngineState awaitStateChange(final long version, long timeout)
+            throws InterruptedException {
+        return awaitState(new DynamicStatePredicate() {
+            @Override
+            public boolean test(@NonNull DynamicEngineState state) {
+                return state.isNewer(version);
+            }
+        }, timeout);
+    }
+
+    /**
+     * Begin a state transaction on the current thread.
+     * <p>All the state changes until the matching {@link #commitStateTransaction()} will be
+     * published together as a single state and the listeners will be notified once.
+     * The transactions can be nested and only the outermost one will be committed.
+     */
+    public void beginStateTransaction() {
+        StateChange transaction = mTransaction.get();
+        if (transaction == null) {
+            transaction = new StateChange();
+            mTransaction.set(transaction);
+        }
+
+        transaction.depth++;
+    }
+
+    /**
+     * Commit the state transaction started on the current thread.
+     *
+     * @see #beginStateTransaction()
+     */
+    public void commitStateTransaction() {
+        StateChange transaction = mTransaction.get();
+        if (transaction == null || --transaction.depth > 0) {
+            return;
+        }
+
+        mTransaction.remove();
+        commitState(transaction, true);
+    }
+
+    /**
+     * Returns the pending changes to update the state.
+     *
+     * @return The pending changes of the current transaction, or new changes if there is no
+     *         transaction on the current thread.
+     */
+    private @NonNull StateChange beginChange() {
+        StateChange transaction = mTransaction.get();
+        return transaction != null ? transaction : new StateChange();
+    }
+
+    /**
+     * Commit the pending changes if they are not part of a transaction.
+     *
+     * @param change The pending changes to be committed.
+     */
+    private void endChange(@NonNull StateChange change) {
+        if (change != mTransaction.get()) {
+            commitState(change, true);
+        }
+    }
+
+    /**
+     * Apply the pending changes to the engine state atomically and notify the listeners.
+     * <p>The notifications are enqueued in the version order and the changes of an older
+     * state, which has been overtaken by a concurrent commit, are delivered along with the
+     * newer state.
+     *
+     * @param change The pending changes to be applied.
+     * @param notify {@code true} to notify the individual state callbacks.
+     *
+     * @return {@code true} if the engine state has been changed.
+     */
+    private boolean commitState(@NonNull StateChange change, boolean notify) {
+        DynamicEngineState state;
+        DynamicEngineState update;
+        do {
+            state = mState.get();
+            update = change.applyTo(state);
+
+            if (update == state) {
+                return false;
+            }
+        } while (!mState.compareAndSet(state, update));
+
+        for (DynamicStateFuture future : mStateFutures) {
+            if (future.offer(update)) {
+                mStateFutures.remove(future);
+            }
+        }
+
+        if ((update.getChangedFlags(state) & DynamicEngineState.FLAG_SCREEN_OFF) != 0) {
+            updateHingeSensor();
+        }
+
+        synchronized (mNotifyLock) {
+            if (!update.isNewer(mNotifiedState.getVersion())) {
+                return true;
+            }
+
+            final DynamicEngineState previous = mNotifiedState;
+            final DynamicEngineState current = update;
+            mNotifiedState = current;
+
+            if (notify) {
+                notifyStateChange(previous, current);
+            }
+
+            if (current.getChangedEvents(previous) != 0) {
+                updateHighestPriorityEvent(current);
+            }
+
+            dispatchEvent(DynamicEventMask.STATE, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onStateChange(previous, current);
+                }
+            });
+        }
+
+        return true;
+    }
+
+    /**
+     * Notify the individual state callbacks for the changes between two states.
+     *
+     * @param previous The previous engine state.
+     * @param current The current engine state.
+     */
+    private void notifyStateChange(@NonNull DynamicEngineState previous,
+            @NonNull final DynamicEngineState current) {
+        if (current.getHinge() != previous.getHinge()) {
+            dispatchEvent(DynamicEventMask.HINGE, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onHingeStateChange(current.getHinge());
+                }
+            });
+        }
+
+        final int flags = current.getChangedFlags(previous);
+        if ((flags & DynamicEngineState.FLAG_CALL) != 0) {
+            dispatchEvent(DynamicEventMask.CALL, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onCallStateChange(
+                            current.isFlag(DynamicEngineState.FLAG_CALL));
+                }
+            });
+        }
+
+        if ((flags & DynamicEngineState.FLAG_SCREEN_OFF) != 0) {
+            dispatchEvent(DynamicEventMask.SCREEN, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onScreenStateChange(
+                            current.isFlag(DynamicEngineState.FLAG_SCREEN_OFF));
+                }
+            });
+        }
+
+        if ((flags & DynamicEngineState.FLAG_LOCKED) != 0) {
+            dispatchEvent(DynamicEventMask.LOCK, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onLockStateChange(
+                            current.isFlag(DynamicEngineState.FLAG_LOCKED));
+                }
+            });
+        }
+
+        if ((flags & DynamicEngineState.FLAG_HEADSET) != 0) {
+            dispatchEvent(DynamicEventMask.HEADSET, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onHeadsetStateChange(
+                            current.isFlag(DynamicEngineState.FLAG_HEADSET));
+                }
+            });
+        }
+
+        if ((flags & DynamicEngineState.FLAG_CHARGING) != 0) {
+            dispatchEvent(DynamicEventMask.CHARGING, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onChargingStateChange(
+                            current.isFlag(DynamicEngineState.FLAG_CHARGING));
+                }
+            });
+        }
+
+        if ((flags & DynamicEngineState.FLAG_DOCKED) != 0) {
+            dispatchEvent(DynamicEventMask.DOCK, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onDockStateChange(
+                            current.isFlag(DynamicEngineState.FLAG_DOCKED));
+                }
+            });
+        }
+
+        if ((current.getChangedEvents(previous) & (1 << DynamicEventId.BATTERY)) != 0) {
+            dispatchEvent(DynamicEventMask.BATTERY, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onBatteryStateChange(
+                            current.isEventActive(DynamicEventId.BATTERY));
+                }
+            });
+        }
+    }
+
+    /**
+     * Update the resolved highest priority event and notify the listener if it has
+     * been changed.
+     * <p>It must be called while holding the {@link #mNotifyLock}.
+     *
+     * @param state The engine state to resolve the highest priority event.
+     *
+     * @see DynamicEventListener#onHighestPriorityEventChange(String)
+     */
+    private void updateHighestPriorityEvent(@NonNull DynamicEngineState state) {
+        final String[] highestEvents = mHighestEvents;
+        if (highestEvents == null) {
+            return;
+        }
+
+        final String event = highestEvents[state.getEventsMask()];
+        if (!event.equals(mHighestEvent.getAndSet(event))) {
+            dispatchEvent(DynamicEventMask.PRIORITY, new EventCallback() {
+                @Override
+                void onEvent(@NonNull DynamicEventListener listener) {
+                    listener.onHighestPriorityEventChange(event);
+                }
+            });
+        }
+    }
+
+    /**
+     * This method will be called to create the scheduler shared by the background tasks of
+     * this service.
+     * <p>Override this method to supply a custom scheduler. For example, to share a timer
+     * thread with the other components of the app.
+     *
+     * @return The scheduler to be used by the background tasks of this service.
+     */
+    protected @NonNull ScheduledExecutorService onCreateScheduler() {
+        ScheduledThreadPoolExecutor scheduler =
+                new ScheduledThreadPoolExecutor(1, getThreadFactory());
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        return scheduler;
+    }
+
+    /**
+     * Returns the thread factory to create the background threads of this service.
+     * <p>The threads will be named after this service and run with the background priority.
+     *
+     * @return The thread factory to create the background threads of this service.
+     */
+    protected @NonNull ThreadFactory getThreadFactory() {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, DynamicEngine.class.getSimpleName());
+            }
+        };
+    }
+
+    /**
+     * This method will be called to release the scheduler when this service is destroyed.
+     * <p>Override this method if the scheduler is shared and should not be shut down.
+     *
+     * @param scheduler The scheduler used by the background tasks of this service.
+     */
+    protected void onDestroyScheduler(@NonNull ScheduledExecutorService scheduler) {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Get the scheduler shared by the background tasks of this service.
+     *
+     * @return The scheduler shared by the background tasks of this service.
+     */
+    public @NonNull ScheduledExecutorService getScheduler() {
+        if (mScheduler == null) {
+            synchronized (this) {
+                if (mScheduler == null) {
+                    mScheduler = onCreateScheduler();
+                }
+            }
+        }
+
+        return mScheduler;
+    }
+
+    /**
+     * Subscribe a listener to all the events of this service.
+     *
+     * @param listener The listener to be subscribed.
+     *
+     * @see #addEventListener(DynamicEventListener, int)
+     */
+    public void addEventListener(@NonNull DynamicEventListener listener) {
+        addEventListener(listener, DynamicEventMask.ALL);
+    }
+
+    /**
+     * Subscribe a listener to the events of this service.
+     * <p>The callbacks will be delivered only for the events in the interest mask and the
+     * existing subscription will be updated if the listener is already subscribed.
+     *
+     * @param listener The listener to be subscribed.
+     * @param mask The interest mask for the events.
+     *
+     * @see DynamicEventMask
+     */
+    public void addEventListener(@NonNull DynamicEventListener listener,
+            @DynamicEventMask int mask) {
+        Subscriber subscriber = new Subscriber(listener, mask);
+
+        synchronized (mSubscribers) {
+            int index = indexOfSubscriber(listener);
+
+            if (index != -1) {
+                mSubscribers.set(index, subscriber);
+            } else {
+                mSubscribers.add(subscriber);
+            }
+        }
+
+        updateReceivers();
+    }
+
+    /**
+     * Unsubscribe a listener from the events of this service.
+     *
+     * @param listener The listener to be unsubscribed.
+     */
+    public void removeEventListener(@NonNull DynamicEventListener listener) {
+        synchronized (mSubscribers) {
+            int index = indexOfSubscriber(listener);
+
+            if (index != -1) {
+                mSubscribers.remove(index);
+            }
+        }
+
+        updateReceivers();
+    }
+
+    /**
+     * Returns the index of a subscribed listener.
+     *
+     * @param listener The listener to find the index.
+     *
+     * @return The index of the subscribed listener, or {@code -1} if it is not subscribed.
+     */
+    private int indexOfSubscriber(@NonNull DynamicEventListener listener) {
+        for (int i = 0; i < mSubscribers.size(); i++) {
+            if (mSubscribers.get(i).listener == listener) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the combined interest mask of all the subscribed listeners.
+     *
+     * @return The combined interest mask of all the subscribed listeners.
+     */
+    public @DynamicEventMask int getSubscribedEvents() {
+        int mask = DynamicEventMask.NONE;
+        for (Subscriber subscriber : mSubscribers) {
+            mask |= subscriber.mask;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Deliver a callback to the special event listener and the interested subscribers by
+     * using the event dispatcher.
+     *
+     * @param mask The interest mask for the callback.
+     * @param callback The callback to be delivered.
+     */
+    private void dispatchEvent(@DynamicEventMask int mask, @NonNull final EventCallback callback) {
+        final DynamicEventListener eventListener = getSpecialEventListener();
+        getEventDispatcher().dispatch(eventListener, new Runnable() {
+            @Override
+            public void run() {
+                callback.onEvent(eventListener);
+            }
+        });
+
+        for (final Subscriber subscriber : mSubscribers) {
+            if ((subscriber.mask & mask) == 0 || subscriber.listener == eventListener) {
+                continue;
+            }
+
+            getEventDispatcher().dispatch(subscriber.listener, new Runnable() {
+                @Override
+                public void run() {
+                    callback.onEvent(subscriber.listener);
+                }
+            });
+        }
+    }
+
+    /**
+     * Notify the special event listener and the interested subscribers that the foreground
+     * app has been changed.
+     *
+     * @param dynamicAppInfo The dynamic app info of the foreground package.
+     */
+    public void notifyAppChange(@Nullable final DynamicAppInfo dynamicAppInfo) {
+        dispatchEvent(DynamicEventMask.APP, new EventCallback() {
+            @Override
+            void onEvent(@NonNull DynamicEventListener listener) {
+                listener.onAppChange(dynamicAppInfo);
+            }
+        });
+    }
+
+    /**
+     * This method will be called to create the dispatcher to deliver the listener callbacks.
+     * <p>Override this method to deliver the callbacks on a dedicated thread or a custom
+     * executor. The callbacks will be delivered inline by default.
+     *
+     * @return The dispatcher to deliver the listener callbacks.
+     *
+     * @see DynamicEventDispatcher#thread(String)
+     * @see DynamicEventDispatcher#executor(java.util.concurrent.Executor)
+     */
+    protected @NonNull DynamicEventDispatcher onCreateEventDispatcher() {
+        return DynamicEventDispatcher.inline();
+    }
+
+    /**
+     * Get the dispatcher to deliver the listener callbacks.
+     *
+     * @return The dispatcher to deliver the listener callbacks.
+     */
+    public @NonNull DynamicEventDispatcher getEventDispatcher() {
+        if (mEventDispatcher == null) {
+            mEventDispatcher = DynamicEventDispatcher.inline();
+        }
+
+        return mEventDispatcher;
+    }
+
+    /**
+     * Set the dispatcher to deliver the listener callbacks.
+     * <p>The previous dispatcher will be shutdown.
+     *
+     * @param eventDispatcher The dispatcher to be set.
+     */
+    public void setEventDispatcher(@NonNull DynamicEventDispatcher eventDispatcher) {
+        if (mEventDispatcher != null && mEventDispatcher != eventDispatcher) {
+            mEventDispatcher.shutdown();
+        }
+
+        this.mEventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * Register or unregister the hinge sensor listener according to the screen state.
+     * <p>The sensor events will be batched according to the report latency and the listener
+     * will be unregistered while the screen is off or after this service is destroyed.
+     */
+    public synchronized void updateHingeSensor() {
+        boolean listen = mHingeSensor != null && !isScreenOff() && !mDestroyed;
+        if (listen == mHingeListening) {
+            return;
+        }
+
+        mHingeListening = listen;
+        if (listen) {
+            getSensorManager().registerListener(this, mHingeSensor,
+                    SensorManager.SENSOR_DELAY_NORMAL, mHingeReportLatency);
+        } else {
+            getSensorManager().unregisterListener(this, mHingeSensor);
+
+            if (mHandler != null) {
+                mHandler.removeCallbacks(mHingeRunnable);
+            }
+            mPendingHinge = DynamicHinge.UNKNOWN;
+        }
+    }
+
+    /**
+     * Get the classifier to convert the hinge angle into a hinge state.
+     * <p>Use it to configure the thresholds and the hysteresis.
+     *
+     * @return The classifier to convert the hinge angle into a hinge state.
+     */
+    public @NonNull DynamicHingeClassifier getHingeClassifier() {
+        return mHingeClassifier;
+    }
+
+    /**
+     * Set the maximum latency to batch the hinge sensor events.
+     *
+     * @param reportLatency The maximum latency in microseconds.
+     */
+    public synchronized void setHingeReportLatency(int reportLatency) {
+        this.mHingeReportLatency = Math.max(0, reportLatency);
+
+        if (mHingeListening) {
+            mHingeListening = false;
+            getSensorManager().unregisterListener(this, mHingeSensor);
+            updateHingeSensor();
+        }
+    }
+
+    /**
+     * Set the time for which a hinge state must be stable before it will be set.
+     *
+     * @param stableDelay The time in milliseconds.
+     */
+    public void setHingeStableDelay(long stableDelay) {
+        this.mHingeStableDelay = Math.max(0, stableDelay);
+    }
+
+    /**
+     * Commit the status of an event received from a broadcast once it holds for the
+     * debounce window of the event.
+     * <p>The pending transition will be suppressed if the event reverts within the window.
+     *
+     * @param eventId The identifier of the event to be updated.
+     * @param active {@code true} if the event is active.
+     */
+    private void debounceEvent(@DynamicEventId int eventId, boolean active) {
+        EventDebouncer debouncer = eventId >= 0 && eventId < mDebouncers.length
+                ? mDebouncers[eventId] : null;
+
+        if (debouncer == null || debouncer.window <= 0) {
+            setEventState(eventId, active);
+        } else {
+            debouncer.offer(active);
+        }
+    }
+
+    /**
+     * Set the state of an event by using its identifier.
+     *
+     * @param eventId The identifier of the event to be updated.
+     * @param active {@code true} if the event is active.
+     */
+    private void setEventState(@DynamicEventId int eventId, boolean active) {
+        switch (eventId) {
+            case DynamicEventId.CALL:
+                setCall(active);
+                break;
+            case DynamicEventId.LOCK:
+                setLocked(active);
+                break;
+            case DynamicEventId.HEADSET:
+                setHeadset(active);
+                break;
+            case DynamicEventId.CHARGING:
+                setCharging(active);
+                break;
+            case DynamicEventId.DOCK:
+                setDocked(active);
+                break;
+            default:
+                updateEventsMap(eventId, active);
+                break;
+        }
+    }
+
+    /**
+     * Returns the debounce window for an event.
+     *
+     * @param eventId The identifier of the event.
+     *
+     * @return The debounce window in milliseconds, or {@code 0} if the event is not debounced.
+     */
+    public long getEventDebounceWindow(@DynamicEventId int eventId) {
+        return eventId >= 0 && eventId < mDebouncers.length && mDebouncers[eventId] != null
+                ? mDebouncers[eventId].window : 0;
+    }
+
+    /**
+     * Set the debounce window for an event.
+     * <p>It is supported for the headset, charging and dock events.
+     *
+     * @param eventId The identifier of the event.
+     * @param window The time in milliseconds for which a transition must hold before it will
+     *               be committed, {@code 0} to commit it immediately.
+     */
+    public void setEventDebounceWindow(@DynamicEventId int eventId, long window) {
+        if (eventId >= 0 && eventId < mDebouncers.length && mDebouncers[eventId] != null) {
+            mDebouncers[eventId].window = Math.max(0, window);
+        }
+    }
+
+    /**
+     * Returns the number of the transitions suppressed for an event because they reverted
+     * within the debounce window.
+     *
+     * @param eventId The identifier of the event.
+     *
+     * @return The number of the suppressed transitions for the event.
+     */
+    public int getSuppressedFlapCount(@DynamicEventId int eventId) {
+        return eventId >= 0 && eventId < mDebouncers.length && mDebouncers[eventId] != null
+                ? mDebouncers[eventId].suppressed.get() : 0;
+    }
+
+    /**
+     * Returns the total number of the transitions suppressed because they reverted within
+     * the debounce window.
+     *
+     * @return The total number of the suppressed transitions.
+     */
+    public int getSuppressedFlapCount() {
+        int count = 0;
+        for (EventDebouncer debouncer : mDebouncers) {
+            if (debouncer != null) {
+                count += debouncer.suppressed.get();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the battery level in percent from a battery changed intent.
+     *
+     * @param intent The battery changed intent.
+     *
+     * @return The battery level in percent, or {@code -1} if it is not available.
+     */
+    private static int getBatteryLevel(@NonNull Intent intent) {
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, 100);
+
+        return level < 0 || scale <= 0 || scale == 100 ? level : level * 100 / scale;
+    }
+
+    /**
+     * Update the battery level and toggle the low battery event if its trigger level has
+     * been crossed.
+     *
+     * @param level The battery level in percent.
+     */
+    private void updateBatteryLevel(int level) {
+        mBatteryLevel = level;
+
+        if (mBatteryLow ? level >= mBatteryTrigger : level <= mBatteryTrigger) {
+            setBatteryLow(!mBatteryLow);
+        }
+    }
+
+    /**
+     * Set the status of the low battery event.
+     *
+     * @param batteryLow {@code true} if the battery is low.
+     */
+    private void setBatteryLow(boolean batteryLow) {
+        synchronized (mBatteryLock) {
+            mBatteryLow = batteryLow;
+            mBatteryTrigger = batteryLow
+                    ? mBatteryLowLevel + mBatteryHysteresis : mBatteryLowLevel;
         }
 
-        Intent dockIntent = ContextCompat.registerReceiver(this, null,
-                new IntentFilter(Intent.ACTION_DOCK_EVENT), ContextCompat.RECEIVER_EXPORTED);
-        if (dockIntent != null) {
-            mDocked = dockIntent.getIntExtra(Intent.EXTRA_DOCK_STATE, -1)
-                    != Intent.EXTRA_DOCK_STATE_UNDOCKED;
-        }
+        updateEventsMap(DynamicEventId.BATTERY, batteryLow);
+    }
 
-        onInitialize(mCharging, mHeadset, mDocked);
+    /**
+     * Get the status of the low battery event.
+     *
+     * @return {@code true} if the battery level is at or below the low level.
+     */
+    public boolean isBatteryLow() {
+        return isEventActive(DynamicEventId.BATTERY);
     }
 
     /**
-     * Update the events priority.
+     * Get the last received battery level.
+     *
+     * @return The last received battery level in percent, or {@code -1} if it is not
+     *         available.
      */
-    public void updateEventsPriority() {
-        mEventsPriority = DynamicPriority.getEventsPriority(this);
+    public int getBatteryLevel() {
+        return mBatteryLevel;
     }
 
     /**
-     * Update the status of an event.
+     * Set the battery level at which the low battery event will be toggled.
      *
-     * @param event The event to update the status.
-     * @param active {@code true} to if the event is currently active.
+     * @param lowLevel The battery level in percent at or below which the low battery event
+     *                 is active.
+     * @param hysteresis The hysteresis in percent above the low level to deactivate the
+     *                   low battery event.
      */
-    public void updateEventsMap(@DynamicEvent @NonNull String event, boolean active) {
-        mEventsMap.remove(event);
+    public void setBatteryLowLevel(int lowLevel, int hysteresis) {
+        boolean batteryLow;
+        synchronized (mBatteryLock) {
+            this.mBatteryLowLevel = lowLevel;
+            this.mBatteryHysteresis = Math.max(0, hysteresis);
+
+            if (mBatteryLevel < 0) {
+                mBatteryTrigger = mBatteryLow ? lowLevel + mBatteryHysteresis : lowLevel;
+                return;
+            }
 
-        if (active) {
-            mEventsMap.put(event, event);
+            batteryLow = mBatteryLow ? mBatteryLevel < lowLevel + mBatteryHysteresis
+                    : mBatteryLevel <= lowLevel;
         }
+
+        setBatteryLow(batteryLow);
     }
 
     /**
@@ -220,6 +1788,10 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return The sensor manager used by this service.
      */
     public @NonNull SensorManager getSensorManager() {
+        if (mSensorManager == null) {
+            mSensorManager = ContextCompat.getSystemService(this, SensorManager.class);
+        }
+
         return mSensorManager;
     }
 
@@ -229,9 +1801,31 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return The keyguard manager used by this service.
      */
     public @Nullable KeyguardManager getKeyguardManager() {
+        if (mKeyguardManager == null) {
+            mKeyguardManager = ContextCompat.getSystemService(this, KeyguardManager.class);
+        }
+
         return mKeyguardManager;
     }
 
+    /**
+     * Get the cache to store the dynamic app info for the packages.
+     *
+     * @return The cache to store the dynamic app info for the packages.
+     */
+    public @NonNull DynamicAppInfoCache getAppInfoCache() {
+        return mAppInfoCache;
+    }
+
+    /**
+     * Get the cache to store the activity components for the accessibility events.
+     *
+     * @return The cache to store the activity components for the accessibility events.
+     */
+    public @NonNull DynamicActivityCache getActivityCache() {
+        return mActivityCache;
+    }
+
     /**
      * Get the listener to listen special events.
      *
@@ -247,6 +1841,18 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return The task to monitor foreground app.
      */
     public @NonNull DynamicAppMonitor getAppMonitor() {
+        if (mDynamicAppMonitor == null) {
+            synchronized (this) {
+                if (mDynamicAppMonitor == null) {
+                    DynamicAppMonitor appMonitor = new DynamicAppMonitor(this);
+                    appMonitor.setPaused(isScreenOff());
+                    appMonitor.setDormant(mAppMonitorDormant);
+
+                    mDynamicAppMonitor = appMonitor;
+                }
+            }
+        }
+
         return mDynamicAppMonitor;
     }
 
@@ -256,7 +1862,8 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return The receiver to listen special events.
      */
     public @Nullable SpecialEventReceiver getSpecialEventReceiver() {
-        return mSpecialEventReceiver;
+        return mSpecialEventReceivers != null
+                ? (SpecialEventReceiver) mSpecialEventReceivers[ADE_RECEIVER_SCREEN] : null;
     }
 
     /**
@@ -269,18 +1876,23 @@ public abstract class DynamicEngine extends DynamicStickyService
      */
     public void setAppMonitorTask(boolean running) {
         if (running) {
-            if (mDynamicAppMonitor.isCancelled()) {
-                mDynamicAppMonitor = new DynamicAppMonitor(this);
-            }
-
-            getAppMonitor().setRunning(true);
-            DynamicTaskUtils.executeTask(getAppMonitor());
+            getAppMonitor().start();
         } else {
-            getAppMonitor().setRunning(false);
-            DynamicTaskUtils.cancelTask(getAppMonitor(), true);
+            getAppMonitor().stop();
         }
 
         updateEventsMap(DynamicEvent.APP, getAppMonitor().isRunning());
+        updateReceivers();
+    }
+
+    /**
+     * Reset the foreground app monitor interval to poll immediately, if it has been created.
+     * <p>It should be called only for the events which may change the foreground app.
+     */
+    private void resetAppMonitorInterval() {
+        if (mDynamicAppMonitor != null) {
+            mDynamicAppMonitor.resetInterval();
+        }
     }
 
     /**
@@ -292,18 +1904,71 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @see DynamicEventListener#onAppChange(DynamicAppInfo)
      */
     public void setAppMonitorTaskPaused(boolean paused) {
-        getAppMonitor().setPaused(paused);
+        if (mDynamicAppMonitor != null) {
+            mDynamicAppMonitor.setPaused(paused);
+        }
+    }
+
+    /**
+     * Set the maximum interval for the foreground app monitor task.
+     * <p>The task will poll quickly after a change and back off towards this interval while
+     * the foreground app remains the same.
+     *
+     * @param maxInterval The maximum interval in milliseconds between two polls.
+     *
+     * @see DynamicAppMonitor#ADE_MAX_POLL_INTERVAL
+     */
+    public void setAppMonitorMaxInterval(long maxInterval) {
+        getAppMonitor().setMaxInterval(maxInterval);
+    }
+
+    /**
+     * Set the period to coalesce the accessibility events for the foreground app monitor task.
+     * <p>Only the latest event within this period will be resolved and dispatched.
+     *
+     * @param conflationWindow The period in milliseconds to coalesce the accessibility events.
+     *
+     * @see DynamicAppMonitor#ADE_CONFLATION_WINDOW
+     */
+    public void setAppMonitorConflationWindow(long conflationWindow) {
+        getAppMonitor().setConflationWindow(conflationWindow);
+    }
+
+    @Override
+    public void onConfigurationChanged(@NonNull Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+
+        if ((mConfiguration.diff(newConfig) & Configuration.CONFIG_LOCALE) != 0) {
+            getAppInfoCache().invalidateAll();
+        }
+
+        mConfiguration = new Configuration(newConfig);
     }
 
     @Override
     public void onDestroy() {
+        mDestroyed = true;
+
         try {
-            if (DynamicSdkUtils.is30()) {
-                getSensorManager().unregisterListener(this);
+            updateHingeSensor();
+            mHandler.removeCallbacksAndMessages(null);
+
+            for (BroadcastReceiver receiver : mSpecialEventReceivers) {
+                if (receiver != null) {
+                    unregisterReceiver(receiver);
+                }
+            }
+
+            if (mDynamicAppMonitor != null) {
+                mDynamicAppMonitor.stop();
             }
+            onDestroyScheduler(getScheduler());
+            getEventDispatcher().shutdown();
 
-            unregisterReceiver(getSpecialEventReceiver());
-            setAppMonitorTask(false);
+            for (DynamicStateFuture future : mStateFutures) {
+                future.complete(null);
+            }
+            mStateFutures.clear();
         } catch (Exception ignored) {
         }
         super.onDestroy();
@@ -315,7 +1980,7 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return The dynamic hinge state.
      */
     public @DynamicHinge int getHinge() {
-        return mHinge;
+        return getState().getHinge();
     }
 
     /**
@@ -324,11 +1989,9 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @param hinge The hinge state to be set.
      */
     public void setHinge(@DynamicHinge int hinge) {
-        if (hinge != getHinge()) {
-            this.mHinge = hinge;
-
-            onHingeStateChange(hinge);
-        }
+        StateChange change = beginChange();
+        change.setHinge(hinge);
+        endChange(change);
     }
 
     /**
@@ -338,7 +2001,7 @@ public abstract class DynamicEngine extends DynamicStickyService
      *         <p>Either ringing or answered.
      */
     public boolean isCall() {
-        return mCall;
+        return getState().isFlag(DynamicEngineState.FLAG_CALL);
     }
 
     /**
@@ -348,11 +2011,9 @@ public abstract class DynamicEngine extends DynamicStickyService
      *              <p>Either ringing or answered.
      */
     public void setCall(boolean call) {
-        if (call != isCall()) {
-            this.mCall = call;
-
-            onCallStateChange(call);
-        }
+        StateChange change = beginChange();
+        change.setFlag(DynamicEngineState.FLAG_CALL, DynamicEventId.CALL, call);
+        endChange(change);
     }
 
     /**
@@ -361,7 +2022,7 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return {@code true} if the device screen is off.
      */
     public boolean isScreenOff() {
-        return mScreenOff;
+        return getState().isFlag(DynamicEngineState.FLAG_SCREEN_OFF);
     }
 
     /**
@@ -370,11 +2031,9 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @param screenOff {@code true} if the device screen is off.
      */
     public void setScreenOff(boolean screenOff) {
-        if (screenOff != isScreenOff()) {
-            this.mScreenOff = screenOff;
-
-            onScreenStateChange(screenOff);
-        }
+        StateChange change = beginChange();
+        change.setFlag(DynamicEngineState.FLAG_SCREEN_OFF, DynamicEventId.NONE, screenOff);
+        endChange(change);
     }
 
     /**
@@ -383,7 +2042,7 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return {@code true} if the device is in the locked state or the lock screen is shown.
      */
     public boolean isLocked() {
-        return mLocked;
+        return getState().isFlag(DynamicEngineState.FLAG_LOCKED);
     }
 
     /**
@@ -393,11 +2052,9 @@ public abstract class DynamicEngine extends DynamicStickyService
      *               is shown.
      */
     public void setLocked(boolean locked) {
-        if (locked != isLocked()) {
-            this.mLocked = locked;
-
-            onLockStateChange(locked);
-        }
+        StateChange change = beginChange();
+        change.setFlag(DynamicEngineState.FLAG_LOCKED, DynamicEventId.LOCK, locked);
+        endChange(change);
     }
 
     /**
@@ -406,7 +2063,7 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return {@code true} if the device is connected to a headset or a audio output device.
      */
     public boolean isHeadset() {
-        return mHeadset;
+        return getState().isFlag(DynamicEngineState.FLAG_HEADSET);
     }
 
     /**
@@ -416,11 +2073,9 @@ public abstract class DynamicEngine extends DynamicStickyService
      *                device.
      */
     public void setHeadset(boolean headset) {
-        if (headset != isHeadset()) {
-            this.mHeadset = headset;
-
-            onHeadsetStateChange(headset);
-        }
+        StateChange change = beginChange();
+        change.setFlag(DynamicEngineState.FLAG_HEADSET, DynamicEventId.HEADSET, headset);
+        endChange(change);
     }
 
     /**
@@ -429,7 +2084,7 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return {@code true} if the device is charging or connected to a power source.
      */
     public boolean isCharging() {
-        return mCharging;
+        return getState().isFlag(DynamicEngineState.FLAG_CHARGING);
     }
 
     /**
@@ -438,11 +2093,9 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @param charging {@code true} if the device is charging or connected to a power source.
      */
     public void setCharging(boolean charging) {
-        if (charging != isCharging()) {
-            this.mCharging = charging;
-
-            onChargingStateChange(charging);
-        }
+        StateChange change = beginChange();
+        change.setFlag(DynamicEngineState.FLAG_CHARGING, DynamicEventId.CHARGING, charging);
+        endChange(change);
     }
 
     /**
@@ -451,7 +2104,7 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return {@code true} if the device is docked.
      */
     public boolean isDocked() {
-        return mDocked;
+        return getState().isFlag(DynamicEngineState.FLAG_DOCKED);
     }
 
     /**
@@ -460,39 +2113,39 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @param docked {@code true} if the device is docked.
      */
     public void setDocked(boolean docked) {
-        if (docked != isDocked()) {
-            this.mDocked = docked;
-
-            onDockStateChange(docked);
-        }
+        StateChange change = beginChange();
+        change.setFlag(DynamicEngineState.FLAG_DOCKED, DynamicEventId.DOCK, docked);
+        endChange(change);
     }
 
     @Override
     public void onSensorChanged(SensorEvent sensorEvent) {
-        if (DynamicSdkUtils.is30()
-                && sensorEvent.sensor.getType() == Sensor.TYPE_HINGE_ANGLE) {
-            final float[] value = sensorEvent.values;
-            if (value == null || value.length == 0) {
-                return;
-            }
+        if (sensorEvent.sensor.getType() != Sensor.TYPE_HINGE_ANGLE
+                || sensorEvent.values == null || sensorEvent.values.length == 0) {
+            return;
+        }
 
-            if ((value[0] > 30 && value[0] < 150) ||
-                    (value[0] > 210 && value[0] <= 270)) {
-                setHinge(DynamicHinge.HALF_EXPANDED);
-            } else if ((value[0] > 150 && value[0] <= 180)
-                    || (value[0] > 180 && value[0] <= 210)) {
-                setHinge(DynamicHinge.FLAT);
-            } else {
-                if (value[0] == 90 || value[0] == 270) {
-                    setHinge(DynamicHinge.HALF_EXPANDED);
-                } else if (value[0] == 180) {
-                    setHinge(DynamicHinge.FLAT);
-                } else {
-                    setHinge(DynamicHinge.COLLAPSED);
-                }
+        // Use the sensor time as the batched samples are delivered together.
+        if (mPendingHinge != DynamicHinge.UNKNOWN && sensorEvent.timestamp - mPendingHingeTime
+                >= TimeUnit.MILLISECONDS.toNanos(mHingeStableDelay)) {
+            setHinge(mPendingHinge);
+        }
 
-                setHinge(DynamicHinge.COLLAPSED);
+        @DynamicHinge int hinge = getHingeClassifier().classify(
+                sensorEvent.values[0], getHinge());
+        mHandler.removeCallbacks(mHingeRunnable);
+        if (hinge == getHinge()) {
+            mPendingHinge = DynamicHinge.UNKNOWN;
+        } else {
+            if (hinge != mPendingHinge) {
+                mPendingHinge = hinge;
+                mPendingHingeTime = sensorEvent.timestamp;
             }
+
+            // Callbacks are posted after the whole batch, so the last sample still holds.
+            mHandler.postDelayed(mHingeRunnable, Math.max(0, mHingeStableDelay
+                    - TimeUnit.NANOSECONDS.toMillis(SystemClock.elapsedRealtimeNanos()
+                    - mPendingHingeTime)));
         }
     }
 
@@ -520,65 +2173,107 @@ public abstract class DynamicEngine extends DynamicStickyService
         @Override
         public void onReceive(@NonNull Context context, @Nullable Intent intent) {
             if (intent != null && intent.getAction() != null) {
-                switch (intent.getAction()) {
-                    case Intent.ACTION_POWER_CONNECTED:
-                        setCharging(true);
-                        break;
-                    case Intent.ACTION_POWER_DISCONNECTED:
-                        setCharging(false);
-                        break;
-                    case Intent.ACTION_HEADSET_PLUG:
-                        setHeadset(intent.getIntExtra(ADE_EXTRA_HEADSET_STATE, 0) == 1);
-                        break;
-                    case Intent.ACTION_DOCK_EVENT:
-                        setDocked(intent.getIntExtra(Intent.EXTRA_DOCK_STATE, -1)
-                                != Intent.EXTRA_DOCK_STATE_UNDOCKED);
-                        break;
-                    case Intent.ACTION_SCREEN_OFF:
-                        setScreenOff(true);
-                        setAppMonitorTaskPaused(true);
-
-                        if (getKeyguardManager() != null) {
-                            setLocked(isKeyguardLocked());
-                        }
-                        break;
-                    case Intent.ACTION_SCREEN_ON:
-                        setScreenOff(false);
-                        setAppMonitorTaskPaused(false);
+                beginStateTransaction();
+                try {
+                    switch (intent.getAction()) {
+                        case Intent.ACTION_POWER_CONNECTED:
+                            debounceEvent(DynamicEventId.CHARGING, true);
+                            break;
+                        case Intent.ACTION_POWER_DISCONNECTED:
+                            debounceEvent(DynamicEventId.CHARGING, false);
+                            break;
+                        case Intent.ACTION_HEADSET_PLUG:
+                            debounceEvent(DynamicEventId.HEADSET,
+                                    intent.getIntExtra(ADE_EXTRA_HEADSET_STATE, 0) == 1);
+                            break;
+                        case Intent.ACTION_DOCK_EVENT:
+                            debounceEvent(DynamicEventId.DOCK,
+                                    intent.getIntExtra(Intent.EXTRA_DOCK_STATE, -1)
+                                            != Intent.EXTRA_DOCK_STATE_UNDOCKED);
+                            break;
+                        case Intent.ACTION_SCREEN_OFF:
+                            setScreenOff(true);
+                            setAppMonitorTaskPaused(true);
+
+                            if (getKeyguardManager() != null) {
+                                setLocked(isKeyguardLocked());
+                            }
+                            break;
+                        case Intent.ACTION_SCREEN_ON:
+                            setScreenOff(false);
+                            setAppMonitorTaskPaused(false);
 
-                        if (getKeyguardManager() != null) {
-                            setLocked(isKeyguardLocked());
-                        }
-                        break;
-                    case Intent.ACTION_USER_PRESENT:
-                        if (getKeyguardManager() != null) {
-                            setLocked(isKeyguardLocked());
-                        }
-                        break;
-                    case Intent.ACTION_PACKAGE_REMOVED:
-                        if (intent.getData() != null
-                                && intent.getData().getSchemeSpecificPart() != null) {
-                            isReplacing = intent.getBooleanExtra(
-                                    Intent.EXTRA_REPLACING, false);
-
-                            if (!isReplacing) {
-                                onPackageRemoved(intent.getData().getSchemeSpecificPart());
+                            if (getKeyguardManager() != null) {
+                                setLocked(isKeyguardLocked());
                             }
-                        }
-                        break;
-                    case Intent.ACTION_PACKAGE_ADDED:
-                        if (intent.getData() != null
-                                && intent.getData().getSchemeSpecificPart() != null) {
-                            onPackageUpdated(DynamicEngineUtils.getAppInfoFromPackage(context,
-                                    intent.getData().getSchemeSpecificPart()), !isReplacing);
-                        }
-                        break;
-                    case DynamicEngineUtils.ACTION_ON_CALL:
-                        setCall(true);
-                        break;
-                    case DynamicEngineUtils.ACTION_CALL_IDLE:
-                        setCall(false);
-                        break;
+                            break;
+                        case Intent.ACTION_USER_PRESENT:
+                            resetAppMonitorInterval();
+
+                            if (getKeyguardManager() != null) {
+                                setLocked(isKeyguardLocked());
+                            }
+                            break;
+                        case Intent.ACTION_PACKAGE_REMOVED:
+                            resetAppMonitorInterval();
+
+                            if (intent.getData() != null
+                                    && intent.getData().getSchemeSpecificPart() != null) {
+                                isReplacing = intent.getBooleanExtra(
+                                        Intent.EXTRA_REPLACING, false);
+                                getAppInfoCache().invalidate(
+                                        intent.getData().getSchemeSpecificPart());
+                                getActivityCache().invalidate(
+                                        intent.getData().getSchemeSpecificPart());
+
+                                if (!isReplacing) {
+                                    final String packageName =
+                                            intent.getData().getSchemeSpecificPart();
+                                    dispatchEvent(DynamicEventMask.PACKAGE, new EventCallback() {
+                                        @Override
+                                        void onEvent(@NonNull DynamicEventListener listener) {
+                                            listener.onPackageRemoved(packageName);
+                                        }
+                                    });
+                                }
+                            }
+                            break;
+                        case Intent.ACTION_PACKAGE_ADDED:
+                            resetAppMonitorInterval();
+
+                            if (intent.getData() != null
+                                    && intent.getData().getSchemeSpecificPart() != null) {
+                                getAppInfoCache().invalidate(
+                                        intent.getData().getSchemeSpecificPart());
+                                getActivityCache().invalidate(
+                                        intent.getData().getSchemeSpecificPart());
+                                final String packageName =
+                                        intent.getData().getSchemeSpecificPart();
+                                final boolean newPackage = !isReplacing;
+                                dispatchEvent(DynamicEventMask.PACKAGE, new EventCallback() {
+                                    @Override
+                                    void onEvent(@NonNull DynamicEventListener listener) {
+                                        DynamicAppInfo dynamicAppInfo =
+                                                getAppInfoCache().getAppInfo(packageName);
+
+                                        listener.onPackageUpdated(dynamicAppInfo != null
+                                                ? new DynamicAppInfo(dynamicAppInfo) : null,
+                                                newPackage);
+                                    }
+                                });
+                            }
+                            break;
+                        case DynamicEngineUtils.ACTION_ON_CALL:
+                            resetAppMonitorInterval();
+                            setCall(true);
+                            break;
+                        case DynamicEngineUtils.ACTION_CALL_IDLE:
+                            resetAppMonitorInterval();
+                            setCall(false);
+                            break;
+                    }
+                } finally {
+                    commitStateTransaction();
                 }
             }
         }
@@ -601,11 +2296,7 @@ public abstract class DynamicEngine extends DynamicStickyService
 
     @CallSuper
     @Override
-    public void onInitialize(boolean charging, boolean headset, boolean docked) {
-        updateEventsMap(DynamicEvent.CHARGING, charging);
-        updateEventsMap(DynamicEvent.HEADSET, headset);
-        updateEventsMap(DynamicEvent.DOCK, docked);
-    }
+    public void onInitialize(boolean charging, boolean headset, boolean docked) { }
 
     @CallSuper
     @Override
@@ -613,9 +2304,7 @@ public abstract class DynamicEngine extends DynamicStickyService
 
     @CallSuper
     @Override
-    public void onCallStateChange(boolean call) {
-        updateEventsMap(DynamicEvent.CALL, call);
-    }
+    public void onCallStateChange(boolean call) { }
 
     @CallSuper
     @Override
@@ -623,69 +2312,69 @@ public abstract class DynamicEngine extends DynamicStickyService
 
     @CallSuper
     @Override
-    public void onLockStateChange(boolean locked) {
-        updateEventsMap(DynamicEvent.LOCK, locked);
-    }
+    public void onLockStateChange(boolean locked) { }
 
     @CallSuper
     @Override
-    public void onHeadsetStateChange(boolean connected) {
-        updateEventsMap(DynamicEvent.HEADSET, connected);
-    }
+    public void onHeadsetStateChange(boolean connected) { }
 
     @CallSuper
     @Override
-    public void onChargingStateChange(boolean charging) {
-        updateEventsMap(DynamicEvent.CHARGING, charging);
-    }
+    public void onChargingStateChange(boolean charging) { }
 
     @CallSuper
     @Override
-    public void onDockStateChange(boolean docked) {
-        updateEventsMap(DynamicEvent.DOCK, docked);
-    }
+    public void onDockStateChange(boolean docked) { }
 
     @CallSuper
     @Override
-    public void onAppChange(@Nullable DynamicAppInfo dynamicAppInfo) {
-        updateEventsMap(DynamicEvent.APP, getAppMonitor().isRunning());
-    }
+    public void onBatteryStateChange(boolean low) { }
+
+    @CallSuper
+    @Override
+    public void onAppChange(@Nullable DynamicAppInfo dynamicAppInfo) { }
+
+    @CallSuper
+    @Override
+    public void onHighestPriorityEventChange(@DynamicEvent @NonNull String event) { }
+
+    @CallSuper
+    @Override
+    public void onStateChange(@NonNull DynamicEngineState previous,
+            @NonNull DynamicEngineState current) { }
 
     @Override
     protected void onAccessibilityStateChanged(boolean enabled) {
         super.onAccessibilityStateChanged(enabled);
 
-        getAppMonitor().setDormant(enabled);
+        mAppMonitorDormant = enabled;
+        if (mDynamicAppMonitor != null) {
+            mDynamicAppMonitor.setDormant(enabled);
+        }
     }
 
     @Override
     public void onAccessibilityEvent(AccessibilityEvent event) {
         super.onAccessibilityEvent(event);
 
-        getAppMonitor().setDormant(true);
-        getAppMonitor().onAccessibilityEvent(event);
+        mAppMonitorDormant = true;
+        if (mDynamicAppMonitor != null) {
+            mDynamicAppMonitor.setDormant(true);
+            mDynamicAppMonitor.onAccessibilityEvent(event);
+        }
     }
 
     /**
      * Retrieve the current ongoing events.
      *
-     * @return The list of current ongoing events.
+     * @return The read-only list of current ongoing events according to their priority.
      */
     protected @NonNull List<String> getCurrentEvents() {
-        if (mEventsPriority == null) {
+        if (mCurrentEvents == null) {
             updateEventsPriority();
         }
 
-        List<String> currentEvents = new ArrayList<>();
-        currentEvents.add(DynamicEvent.NONE);
-
-        for (String eventPriority : mEventsPriority) {
-            if (mEventsMap.containsKey(eventPriority)) {
-                currentEvents.add(mEventsMap.get(eventPriority));
-            }
-        }
-
-        return currentEvents;
+        return mCurrentEvents.get(getState().getEventsMask());
     }
 
     /**
@@ -711,6 +2400,258 @@ public abstract class DynamicEngine extends DynamicStickyService
      * @return The highest priority event that has been occurred.
      */
     protected @DynamicEvent String getHighestPriorityEvent() {
-        return getEventByPriority(getCurrentEvents(), 1);
+        if (mHighestEvents == null) {
+            updateEventsPriority();
+        }
+
+        return mHighestEvent.get();
+    }
+
+    /**
+     * Get the identifier of the event with highest priority.
+     *
+     * @return The identifier of the highest priority event that has been occurred.
+     */
+    protected @DynamicEventId int getHighestPriorityEventId() {
+        return DynamicEngineUtils.getEventId(getHighestPriorityEvent());
+    }
+
+    /**
+     * Pending changes to be applied to the engine state at once.
+     */
+    private static final class StateChange {
+
+        /**
+         * Nesting depth if it is the pending changes of a state transaction.
+         */
+        private int depth;
+
+        /**
+         * Flags to be set.
+         */
+        private int setFlags;
+
+        /**
+         * Flags to be cleared.
+         */
+        private int clearFlags;
+
+        /**
+         * Events to be activated.
+         */
+        private int setEvents;
+
+        /**
+         * Events to be deactivated.
+         */
+        private int clearEvents;
+
+        /**
+         * {@code true} if the hinge state has been changed.
+         */
+        private boolean hingeChanged;
+
+        /**
+         * The hinge state to be set.
+         */
+        private @DynamicHinge int hinge;
+
+        /**
+         * Set a flag along with its event.
+         *
+         * @param flag The flag to be updated.
+         * @param eventId The identifier of the event for the flag, if any.
+         * @param set {@code true} to set the flag and activate the event.
+         *
+         * @return The pending changes object to allow for chaining of calls to set methods.
+         */
+        @NonNull StateChange setFlag(int flag, @DynamicEventId int eventId, boolean set) {
+            if (set) {
+                setFlags |= flag;
+                clearFlags &= ~flag;
+            } else {
+                clearFlags |= flag;
+                setFlags &= ~flag;
+            }
+
+            return setEvent(eventId, set);
+        }
+
+        /**
+         * Set the status of an event.
+         *
+         * @param eventId The identifier of the event to be updated.
+         * @param active {@code true} to activate the event.
+         *
+         * @return The pending changes object to allow for chaining of calls to set methods.
+         */
+        @NonNull StateChange setEvent(@DynamicEventId int eventId, boolean active) {
+            if (eventId < 0 || eventId >= DynamicEventId.COUNT) {
+                return this;
+            }
+
+            if (active) {
+                setEvents |= 1 << eventId;
+                clearEvents &= ~(1 << eventId);
+            } else {
+                clearEvents |= 1 << eventId;
+                setEvents &= ~(1 << eventId);
+            }
+
+            return this;
+        }
+
+        /**
+         * Set the hinge state.
+         *
+         * @param hinge The hinge state to be set.
+         *
+         * @return The pending changes object to allow for chaining of calls to set methods.
+         */
+        @NonNull StateChange setHinge(@DynamicHinge int hinge) {
+            this.hinge = hinge;
+            this.hingeChanged = true;
+
+            return this;
+        }
+
+        /**
+         * Apply the pending changes to an engine state.
+         *
+         * @param state The engine state to apply the changes.
+         *
+         * @return The updated engine state, or the supplied state if nothing has changed.
+         */
+        @NonNull DynamicEngineState applyTo(@NonNull DynamicEngineState state) {
+            return state.with(hingeChanged ? hinge : state.getHinge(),
+                    (state.getFlags() | setFlags) & ~clearFlags,
+                    (state.getEventsMask() | setEvents) & ~clearEvents);
+        }
+    }
+
+    /**
+     * Broadcast receiver to listen the battery level changes.
+     * <p>It filters the frequent battery changed broadcasts and commits only when the low
+     * battery trigger level has been crossed.
+     *
+     * @see Intent#ACTION_BATTERY_CHANGED
+     */
+    public class BatteryLevelReceiver extends BroadcastReceiver {
+
+        @Override
+        public void onReceive(@NonNull Context context, @Nullable Intent intent) {
+            int level = intent != null ? getBatteryLevel(intent) : -1;
+            if (level >= 0) {
+                updateBatteryLevel(level);
+            }
+        }
+    }
+
+    /**
+     * Debouncer to commit the transitions of an event only after they hold for a window.
+     * <p>It should be used on the main thread.
+     */
+    private final class EventDebouncer implements Runnable {
+
+        /**
+         * Identifier of the debounced event.
+         */
+        final @DynamicEventId int eventId;
+
+        /**
+         * Number of the transitions which have been suppressed.
+         */
+        final AtomicInteger suppressed = new AtomicInteger();
+
+        /**
+         * Time in milliseconds for which a transition must hold.
+         */
+        volatile long window = ADE_DEBOUNCE_WINDOW;
+
+        /**
+         * {@code true} if a transition is waiting to be committed.
+         */
+        private boolean pending;
+
+        /**
+         * The status waiting to be committed.
+         */
+        private boolean active;
+
+        /**
+         * Constructor to initialize an object of this class.
+         *
+         * @param eventId The identifier of the debounced event.
+         */
+        EventDebouncer(@DynamicEventId int eventId) {
+            this.eventId = eventId;
+        }
+
+        /**
+         * Offer a new status for the event.
+         *
+         * @param active {@code true} if the event is active.
+         */
+        void offer(boolean active) {
+            if (pending) {
+                if (active != this.active) {
+                    pending = false;
+                    mHandler.removeCallbacks(this);
+                    suppressed.incrementAndGet();
+                }
+            } else if (active != isEventActive(eventId)) {
+                this.pending = true;
+                this.active = active;
+                mHandler.postDelayed(this, window);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (pending) {
+                pending = false;
+                setEventState(eventId, active);
+            }
+        }
+    }
+
+    /**
+     * Callback to be delivered to an event listener.
+     */
+    private abstract static class EventCallback {
+
+        /**
+         * This method will be called to deliver the callback to an event listener.
+         *
+         * @param listener The event listener to deliver the callback.
+         */
+        abstract void onEvent(@NonNull DynamicEventListener listener);
+    }
+
+    /**
+     * Listener subscribed to the events along with its interest mask.
+     */
+    private static final class Subscriber {
+
+        /**
+         * The subscribed listener.
+         */
+        final DynamicEventListener listener;
+
+        /**
+         * The interest mask for the events.
+         */
+        final @DynamicEventMask int mask;
+
+        /**
+         * Constructor to initialize an object of this class.
+         *
+         * @param listener The subscribed listener.
+         * @param mask The interest mask for the events.
+         */
+        Subscriber(@NonNull DynamicEventListener listener, @DynamicEventMask int mask) {
+            this.listener = listener;
+            this.mask = mask;
+        }
     }
 }
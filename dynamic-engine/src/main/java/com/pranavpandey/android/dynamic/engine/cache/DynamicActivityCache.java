@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.android.dynamic.engine.cache;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pranavpandey.android.dynamic.engine.util.DynamicEngineUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache to store whether a class within a package is an activity or not.
+ * <p>It avoids the package manager calls for every accessibility window event by caching
+ * the positive and negative results. Positive results are stored as the interned
+ * {@link ComponentName} so that it can be reused for the same activity.
+ *
+ * <p>It should be invalidated when a package is added or removed.
+ */
+public class DynamicActivityCache {
+
+    /**
+     * Default maximum number of packages to be cached.
+     */
+    public static final int ADE_DEFAULT_SIZE = 16;
+
+    /**
+     * Maximum number of classes to be cached for a package.
+     */
+    private static final int ADE_MAX_CLASSES = 64;
+
+    /**
+     * Context to resolve the activity info.
+     */
+    private final Context mContext;
+
+    /**
+     * Cache to store the resolved classes for a package.
+     * <p>A {@code null} value for a class represents that it is not an activity.
+     */
+    private final LruCache<String, Map<String, ComponentName>> mCache;
+
+    /**
+     * Number of resolutions returned from the cache.
+     */
+    private long mHitCount;
+
+    /**
+     * Number of resolutions which required a package manager call.
+     */
+    private long mMissCount;
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param context The context to resolve the activity info.
+     */
+    public DynamicActivityCache(@NonNull Context context) {
+        this(context, ADE_DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param context The context to resolve the activity info.
+     * @param maxSize The maximum number of packages to be cached.
+     */
+    public DynamicActivityCache(@NonNull Context context, int maxSize) {
+        this.mContext = context;
+        this.mCache = new LruCache<>(maxSize);
+    }
+
+    /**
+     * Resolve the activity component for the package and class name.
+     *
+     * @param packageName The package name of the component.
+     * @param className The class name of the component.
+     *
+     * @return The interned component name if the class is an activity, otherwise {@code null}.
+     */
+    public synchronized @Nullable ComponentName resolve(
+            @NonNull String packageName, @NonNull String className) {
+        Map<String, ComponentName> classes = mCache.get(packageName);
+        if (classes == null) {
+            classes = new HashMap<>();
+            mCache.put(packageName, classes);
+        } else if (classes.containsKey(className)) {
+            mHitCount++;
+
+            return classes.get(className);
+        }
+
+        mMissCount++;
+        ComponentName componentName = new ComponentName(packageName, className);
+        if (DynamicEngineUtils.getActivityInfo(mContext, componentName) == null) {
+            componentName = null;
+        }
+
+        if (classes.size() >= ADE_MAX_CLASSES) {
+            classes.clear();
+        }
+
+        classes.put(className, componentName);
+
+        return componentName;
+    }
+
+    /**
+     * Invalidate the cached classes for the package name.
+     *
+     * @param packageName The package name to be invalidated.
+     */
+    public synchronized void invalidate(@Nullable String packageName) {
+        if (packageName != null) {
+            mCache.remove(packageName);
+        }
+    }
+
+    /**
+     * Invalidate all the cached classes.
+     */
+    public synchronized void invalidateAll() {
+        mCache.evictAll();
+    }
+
+    /**
+     * Returns the number of resolutions returned from the cache.
+     *
+     * @return The number of resolutions returned from the cache.
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of resolutions which required a package manager call.
+     *
+     * @return The number of resolutions which required a package manager call.
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+}
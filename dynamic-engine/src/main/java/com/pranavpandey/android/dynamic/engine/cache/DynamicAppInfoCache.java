@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.android.dynamic.engine.cache;
+
+import android.content.Context;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pranavpandey.android.dynamic.engine.model.DynamicAppInfo;
+import com.pranavpandey.android.dynamic.engine.util.DynamicEngineUtils;
+
+/**
+ * A bounded {@link LruCache} to store the {@link DynamicAppInfo} for a package name.
+ * <p>It avoids the package manager calls to load the app info on every foreground poll
+ * and should be invalidated when a package is added, removed or the locale is changed.
+ *
+ * <p>Use {@link #hitCount()} and {@link #missCount()} to get the cache statistics.
+ */
+public class DynamicAppInfoCache extends LruCache<String, DynamicAppInfo> {
+
+    /**
+     * Default maximum number of packages to be cached.
+     */
+    public static final int ADE_DEFAULT_SIZE = 32;
+
+    /**
+     * Context to load the app info.
+     */
+    private final Context mContext;
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param context The context to load the app info.
+     */
+    public DynamicAppInfoCache(@NonNull Context context) {
+        this(context, ADE_DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param context The context to load the app info.
+     * @param maxSize The maximum number of packages to be cached.
+     */
+    public DynamicAppInfoCache(@NonNull Context context, int maxSize) {
+        super(maxSize);
+
+        this.mContext = context;
+    }
+
+    @Override
+    protected @Nullable DynamicAppInfo create(@NonNull String packageName) {
+        return DynamicEngineUtils.getAppInfoFromPackage(mContext, packageName);
+    }
+
+    /**
+     * Returns the dynamic app info for the package name.
+     * <p>It will be loaded from the package manager if not already cached.
+     * <p>The returned instance is shared by the cache, copy it before handing it out or
+     * making any modifications.
+     *
+     * @param packageName The package name to get the dynamic app info.
+     *
+     * @return The dynamic app info for the package name.
+     */
+    public @Nullable DynamicAppInfo getAppInfo(@Nullable String packageName) {
+        if (packageName == null) {
+            return null;
+        }
+
+        return get(packageName);
+    }
+
+    /**
+     * Invalidate the cached dynamic app info for the package name.
+     *
+     * @param packageName The package name to be invalidated.
+     */
+    public void invalidate(@Nullable String packageName) {
+        if (packageName != null) {
+            remove(packageName);
+        }
+    }
+
+    /**
+     * Invalidate all the cached dynamic app info.
+     */
+    public void invalidateAll() {
+        evictAll();
+    }
+}
@@ -16,14 +16,20 @@
 
 package com.pranavpandey.android.dynamic.engine.listener;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.pranavpandey.android.dynamic.engine.DynamicEngine;
 import com.pranavpandey.android.dynamic.engine.model.DynamicAppInfo;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEngineState;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEvent;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEventMask;
 import com.pranavpandey.android.dynamic.engine.model.DynamicHinge;
 
 /**
  * Interface to listen various system events with the help of {@link DynamicEngine}.
+ * <p>All the callbacks do nothing by default, so that only the required ones can be
+ * overridden along with a matching {@link DynamicEventMask}.
  */
 public interface DynamicEventListener {
 
@@ -36,7 +42,7 @@ public interface DynamicEventListener {
      *                device.
      * @param docked {@code true} if the device is docked.
      */
-    void onInitialize(boolean charging, boolean headset, boolean docked);
+    default void onInitialize(boolean charging, boolean headset, boolean docked) { }
 
     /**
      * This method will be called when the hinge state is changed.
@@ -45,7 +51,7 @@ public interface DynamicEventListener {
      *
      * @see DynamicHinge
      */
-    void onHingeStateChange(@DynamicHinge int state);
+    default void onHingeStateChange(@DynamicHinge int state) { }
 
     /**
      * This method will be called when the call state is changed.
@@ -54,7 +60,7 @@ public interface DynamicEventListener {
      * @param call {@code true} if the device is on call.
      *             <p>Either ringing or answered.
      */
-    void onCallStateChange(boolean call);
+    default void onCallStateChange(boolean call) { }
 
     /**
      * This method will be called when the screen state is changed.
@@ -62,7 +68,7 @@ public interface DynamicEventListener {
      *
      * @param screenOff {@code true} if the device screen is off.
      */
-    void onScreenStateChange(boolean screenOff);
+    default void onScreenStateChange(boolean screenOff) { }
 
     /**
      * This method will be called when the lock state is changed.
@@ -71,7 +77,7 @@ public interface DynamicEventListener {
      *
      * @param locked {@code true} if the device is in the locked state or the lock screen is shown.
      */
-    void onLockStateChange(boolean locked);
+    default void onLockStateChange(boolean locked) { }
 
     /**
      * This method will be called when the headset state is changed.
@@ -81,7 +87,7 @@ public interface DynamicEventListener {
      * @param connected {@code true} if the device is connected to a headset or a audio output
      *                  device.
      */
-    void onHeadsetStateChange(boolean connected);
+    default void onHeadsetStateChange(boolean connected) { }
 
     /**
      * This method will be called when the charging state is changed.
@@ -89,7 +95,7 @@ public interface DynamicEventListener {
      *
      * @param charging {@code true} if the device is charging or connected to a power source.
      */
-    void onChargingStateChange(boolean charging);
+    default void onChargingStateChange(boolean charging) { }
 
     /**
      * This method will be called when the dock state is changed.
@@ -97,7 +103,15 @@ public interface DynamicEventListener {
      *
      * @param docked {@code true} if the device is docked.
      */
-    void onDockStateChange(boolean docked);
+    default void onDockStateChange(boolean docked) { }
+
+    /**
+     * This method will be called when the low battery state is changed.
+     * <p>Either the battery level is at or below the low level or it has been recovered.
+     *
+     * @param low {@code true} if the battery is low.
+     */
+    default void onBatteryStateChange(boolean low) { }
 
     /**
      * This method will be called when the foreground app is changed.
@@ -105,7 +119,32 @@ public interface DynamicEventListener {
      *
      * @param dynamicAppInfo The dynamic app info of the foreground package.
      */
-    void onAppChange(@Nullable DynamicAppInfo dynamicAppInfo);
+    default void onAppChange(@Nullable DynamicAppInfo dynamicAppInfo) { }
+
+    /**
+     * This method will be called when the highest priority event is changed.
+     * <p>Use it to apply the event specific functionality only when the effective event
+     * is changed instead of recomputing it on every state change.
+     *
+     * @param event The current highest priority event.
+     *
+     * @see DynamicEvent
+     */
+    default void onHighestPriorityEventChange(@DynamicEvent @NonNull String event) { }
+
+    /**
+     * This method will be called once for every committed change of the engine state.
+     * <p>All the changes caused by a single event, for example, the screen off along with
+     * the lock are delivered together so that they can be applied at once.
+     *
+     * @param previous The previous engine state.
+     * @param current The current engine state.
+     *
+     * @see DynamicEngineState#getChangedFlags(DynamicEngineState)
+     * @see DynamicEngineState#getChangedEvents(DynamicEngineState)
+     */
+    default void onStateChange(@NonNull DynamicEngineState previous,
+            @NonNull DynamicEngineState current) { }
 
     /**
      * This method will be called when an app package is added or changed.
@@ -114,7 +153,8 @@ public interface DynamicEventListener {
      * @param dynamicAppInfo The dynamic app info of the updated or added package.
      * @param newPackage {@code true} if the package is newly added.
      */
-    void onPackageUpdated(@Nullable DynamicAppInfo dynamicAppInfo, boolean newPackage);
+    default void onPackageUpdated(@Nullable DynamicAppInfo dynamicAppInfo,
+            boolean newPackage) { }
 
     /**
      * This method will be called when an app package is removed.
@@ -122,5 +162,5 @@ public interface DynamicEventListener {
      *
      * @param packageName The package which was removed.
      */
-    void onPackageRemoved(@Nullable String packageName);
+    default void onPackageRemoved(@Nullable String packageName) { }
 }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pranavpandey.android.dynamic.engine.listener;
+
+import androidx.annotation.NonNull;
+
+import com.pranavpandey.android.dynamic.engine.DynamicEngine;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEngineState;
+
+/**
+ * Interface to test the {@link DynamicEngine} state while waiting for a state change.
+ */
+public interface DynamicStatePredicate {
+
+    /**
+     * This method will be called on every state transition of the engine to check whether
+     * the waiting condition has been met.
+     * <p>It may be called from any thread and should return quickly without blocking.
+     *
+     * @param state The current engine state.
+     *
+     * @return {@code true} if the waiting condition has been met.
+     */
+    boolean test(@NonNull DynamicEngineState state);
+}
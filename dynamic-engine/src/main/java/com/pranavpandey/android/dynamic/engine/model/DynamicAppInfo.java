@@ -17,20 +17,25 @@
 package com.pranavpandey.android.dynamic.engine.model;
 
 import android.content.ComponentName;
+import android.content.Context;
 import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 /**
  * Collection of various properties for a given package for an easy data interchange.
+ * <p>Only the package name, label and flags are held eagerly and the {@link ApplicationInfo}
+ * will be loaded lazily, so that it can be shared and parceled with a minimal footprint.
  */
 public class DynamicAppInfo implements Parcelable {
 
     /**
-     * Application info.
+     * Application info which will be loaded lazily.
      */
     private ApplicationInfo applicationInfo;
 
@@ -49,21 +54,41 @@ public class DynamicAppInfo implements Parcelable {
      */
     private String label;
 
+    /**
+     * Application flags.
+     *
+     * @see ApplicationInfo#flags
+     */
+    private int flags;
+
     /**
      * Default constructor to initialize the dynamic app info.
      */
     public DynamicAppInfo() { }
 
+    /**
+     * Constructor to initialize an object of this class from another dynamic app info.
+     *
+     * @param dynamicAppInfo The dynamic app info to copy the values.
+     */
+    public DynamicAppInfo(@NonNull DynamicAppInfo dynamicAppInfo) {
+        this.applicationInfo = dynamicAppInfo.applicationInfo;
+        this.topActivity = dynamicAppInfo.getTopActivity();
+        this.packageName = dynamicAppInfo.getPackageName();
+        this.label = dynamicAppInfo.getLabel();
+        this.flags = dynamicAppInfo.getFlags();
+    }
+
     /**
      * Read an object of this class from the parcel.
      *
      * @param in The parcel to read the values.
      */
     public DynamicAppInfo(@NonNull Parcel in) {
-        this.applicationInfo = in.readParcelable(ApplicationInfo.class.getClassLoader());
-        this.topActivity = in.readParcelable(ComponentName.class.getClassLoader());
         this.packageName = in.readString();
         this.label = in.readString();
+        this.flags = in.readInt();
+        this.topActivity = ComponentName.readFromParcel(in);
     }
 
     /**
@@ -84,33 +109,60 @@ public class DynamicAppInfo implements Parcelable {
 
     @Override
     public int describeContents() {
-        return hashCode();
+        return 0;
     }
 
     @Override
     public void writeToParcel(Parcel dest, int flags) {
-        dest.writeParcelable(applicationInfo, flags);
-        dest.writeParcelable(topActivity, flags);
         dest.writeString(packageName);
         dest.writeString(label);
+        dest.writeInt(this.flags);
+        ComponentName.writeToParcel(topActivity, dest);
     }
 
     /**
-     * Get the application info.
+     * Get the application info if it has been loaded or set.
      *
      * @return The application info.
+     *
+     * @see #getApplicationInfo(Context)
      */
     public @Nullable ApplicationInfo getApplicationInfo() {
         return applicationInfo;
     }
 
+    /**
+     * Get the application info.
+     * <p>It will be loaded on the first call by using the supplied context.
+     *
+     * @param context The context to get the {@link PackageManager}.
+     *
+     * @return The application info.
+     */
+    public @Nullable ApplicationInfo getApplicationInfo(@NonNull Context context) {
+        if (applicationInfo == null && packageName != null) {
+            try {
+                applicationInfo = context.getPackageManager().getApplicationInfo(
+                        packageName, PackageManager.GET_META_DATA);
+            } catch (Exception ignored) {
+            }
+        }
+
+        return applicationInfo;
+    }
+
     /**
      * Set the application info.
+     * <p>It will also update the application flags.
      *
      * @param applicationInfo The application info to be set.
      */
     public void setApplicationInfo(@Nullable ApplicationInfo applicationInfo) {
         this.applicationInfo = applicationInfo;
+
+        if (applicationInfo != null) {
+            this.flags = applicationInfo.flags;
+        }
     }
 
     /**
@@ -167,15 +219,62 @@ public class DynamicAppInfo implements Parcelable {
         this.label = label;
     }
 
+    /**
+     * Get the application flags.
+     *
+     * @return The application flags.
+     *
+     * @see ApplicationInfo#flags
+     */
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Set the application flags.
+     *
+     * @param flags The application flags to be set.
+     */
+    public void setFlags(int flags) {
+        this.flags = flags;
+    }
+
+    /**
+     * Checks whether the application is a system app.
+     *
+     * @return {@code true} if the application is a system app.
+     */
+    public boolean isSystemApp() {
+        return (flags & ApplicationInfo.FLAG_SYSTEM) != 0;
+    }
+
     /**
      * Compare the object of this class with another object.
+     * <p>Two objects are equal if they have the same package name and top activity.
      *
-     * @param dynamicAppInfo The other DynamicAppInfo to compare.
+     * @param object The other object to compare.
      *
      * @return {@code true} if the two objects are equal.
      */
-    public boolean equals(@NonNull DynamicAppInfo dynamicAppInfo) {
-        return !(getPackageName() != null && dynamicAppInfo.getPackageName() != null)
-                || getPackageName().equals(dynamicAppInfo.getPackageName());
+    @Override
+    public boolean equals(@Nullable Object object) {
+        if (this == object) {
+            return true;
+        }
+
+        if (!(object instanceof DynamicAppInfo)) {
+            return false;
+        }
+
+        DynamicAppInfo dynamicAppInfo = (DynamicAppInfo) object;
+        return TextUtils.equals(getPackageName(), dynamicAppInfo.getPackageName())
+                && (getTopActivity() == null ? dynamicAppInfo.getTopActivity() == null
+                : getTopActivity().equals(dynamicAppInfo.getTopActivity()));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getPackageName() != null ? getPackageName().hashCode() : 0;
+        return 31 * result + (getTopActivity() != null ? getTopActivity().hashCode() : 0);
     }
 }
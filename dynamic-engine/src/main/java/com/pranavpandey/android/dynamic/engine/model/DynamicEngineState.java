@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.android.dynamic.engine.model;
+
+import androidx.annotation.NonNull;
+
+import com.pranavpandey.android.dynamic.engine.DynamicEngine;
+
+/**
+ * Immutable snapshot of the {@link DynamicEngine} state.
+ * <p>Every change will create a new snapshot with an incremented version, so that it can be
+ * published atomically and read from any thread without locks.
+ */
+public final class DynamicEngineState {
+
+    /**
+     * Flag for the call state.
+     */
+    public static final int FLAG_CALL = 1;
+
+    /**
+     * Flag for the screen off state.
+     */
+    public static final int FLAG_SCREEN_OFF = 1 << 1;
+
+    /**
+     * Flag for the lock state.
+     */
+    public static final int FLAG_LOCKED = 1 << 2;
+
+    /**
+     * Flag for the headset state.
+     */
+    public static final int FLAG_HEADSET = 1 << 3;
+
+    /**
+     * Flag for the charging state.
+     */
+    public static final int FLAG_CHARGING = 1 << 4;
+
+    /**
+     * Flag for the dock state.
+     */
+    public static final int FLAG_DOCKED = 1 << 5;
+
+    /**
+     * The initial state without any flag or active event.
+     */
+    public static final DynamicEngineState EMPTY =
+            new DynamicEngineState(0L, DynamicHinge.COLLAPSED, 0, 0);
+
+    /**
+     * Monotonically increasing version of this state.
+     */
+    private final long version;
+
+    /**
+     * The dynamic hinge state.
+     */
+    private final @DynamicHinge int hinge;
+
+    /**
+     * Flags for the boolean states.
+     */
+    private final int flags;
+
+    /**
+     * Bitmask of the active events.
+     *
+     * @see DynamicEventId
+     */
+    private final int eventsMask;
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param version The version of this state.
+     * @param hinge The dynamic hinge state.
+     * @param flags The flags for the boolean states.
+     * @param eventsMask The bitmask of the active events.
+     */
+    private DynamicEngineState(long version, @DynamicHinge int hinge, int flags, int eventsMask) {
+        this.version = version;
+        this.hinge = hinge;
+        this.flags = flags;
+        this.eventsMask = eventsMask;
+    }
+
+    /**
+     * Returns the version of this state.
+     *
+     * @return The version of this state.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the dynamic hinge state.
+     *
+     * @return The dynamic hinge state.
+     */
+    public @DynamicHinge int getHinge() {
+        return hinge;
+    }
+
+    /**
+     * Returns the flags for the boolean states.
+     *
+     * @return The flags for the boolean states.
+     */
+    public int getFlags() {
+        return flags;
+    }
+
+    /**
+     * Checks whether a flag is set in this state.
+     *
+     * @param flag The flag to be checked.
+     *
+     * @return {@code true} if the flag is set in this state.
+     */
+    public boolean isFlag(int flag) {
+        return (flags & flag) == flag;
+    }
+
+    /**
+     * Returns the bitmask of the active events.
+     *
+     * @return The bitmask of the active events.
+     */
+    public int getEventsMask() {
+        return eventsMask;
+    }
+
+    /**
+     * Checks whether an event is active in this state.
+     *
+     * @param eventId The identifier of the event to be checked.
+     *
+     * @return {@code true} if the event is active in this state.
+     */
+    public boolean isEventActive(@DynamicEventId int eventId) {
+        return eventId >= 0 && eventId < DynamicEventId.COUNT
+                && (eventsMask & (1 << eventId)) != 0;
+    }
+
+    /**
+     * Checks whether this state has been changed since a version.
+     *
+     * @param version The version to be compared.
+     *
+     * @return {@code true} if this state is newer than the supplied version.
+     */
+    public boolean isNewer(long version) {
+        return this.version > version;
+    }
+
+    /**
+     * Returns a new state with the updated hinge.
+     *
+     * @param hinge The hinge state to be set.
+     *
+     * @return The new state, or this state if the hinge is already the same.
+     */
+    public @NonNull DynamicEngineState withHinge(@DynamicHinge int hinge) {
+        return hinge == this.hinge ? this
+                : new DynamicEngineState(version + 1, hinge, flags, eventsMask);
+    }
+
+    /**
+     * Returns a new state with the updated flag.
+     *
+     * @param flag The flag to be updated.
+     * @param set {@code true} to set the flag.
+     *
+     * @return The new state, or this state if the flag is already the same.
+     */
+    public @NonNull DynamicEngineState withFlag(int flag, boolean set) {
+        int flags = set ? this.flags | flag : this.flags & ~flag;
+
+        return flags == this.flags ? this
+                : new DynamicEngineState(version + 1, hinge, flags, eventsMask);
+    }
+
+    /**
+     * Returns a new state with the updated event.
+     *
+     * @param eventId The identifier of the event to be updated.
+     * @param active {@code true} if the event is active.
+     *
+     * @return The new state, or this state if the event is already the same.
+     */
+    public @NonNull DynamicEngineState withEvent(@DynamicEventId int eventId, boolean active) {
+        if (eventId < 0 || eventId >= DynamicEventId.COUNT) {
+            return this;
+        }
+
+        int eventsMask = active ? this.eventsMask | (1 << eventId)
+                : this.eventsMask & ~(1 << eventId);
+
+        return eventsMask == this.eventsMask ? this
+                : new DynamicEngineState(version + 1, hinge, flags, eventsMask);
+    }
+
+    /**
+     * Returns a new state with the updated values.
+     *
+     * @param hinge The hinge state to be set.
+     * @param flags The flags for the boolean states to be set.
+     * @param eventsMask The bitmask of the active events to be set.
+     *
+     * @return The new state, or this state if all the values are already the same.
+     */
+    public @NonNull DynamicEngineState with(@DynamicHinge int hinge, int flags, int eventsMask) {
+        return hinge == this.hinge && flags == this.flags && eventsMask == this.eventsMask
+                ? this : new DynamicEngineState(version + 1, hinge, flags, eventsMask);
+    }
+
+    /**
+     * Returns the flags which are different from another state.
+     *
+     * @param state The state to be compared.
+     *
+     * @return The flags which are different from the supplied state.
+     */
+    public int getChangedFlags(@NonNull DynamicEngineState state) {
+        return flags ^ state.flags;
+    }
+
+    /**
+     * Returns the events which are different from another state.
+     *
+     * @param state The state to be compared.
+     *
+     * @return The bitmask of the events which are different from the supplied state.
+     */
+    public int getChangedEvents(@NonNull DynamicEngineState state) {
+        return eventsMask ^ state.eventsMask;
+    }
+
+    @Override
+    public @NonNull String toString() {
+        return "DynamicEngineState{version=" + version + ", hinge=" + hinge
+                + ", flags=" + Integer.toBinaryString(flags)
+                + ", eventsMask=" + Integer.toBinaryString(eventsMask) + "}";
+    }
+}
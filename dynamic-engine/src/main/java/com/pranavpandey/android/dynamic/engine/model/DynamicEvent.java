@@ -61,4 +61,10 @@ public @interface DynamicEvent {
      * Constant for the app event.
      */
     String APP = "5";
+
+    /**
+     * Constant for the low battery event.
+     * <p>It is not part of the default priority and must be added explicitly.
+     */
+    String BATTERY = "6";
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.android.dynamic.engine.model;
+
+import com.pranavpandey.android.dynamic.engine.DynamicEngine;
+import com.pranavpandey.android.dynamic.engine.util.DynamicEngineUtils;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Integer identifiers for the events supported by the {@link DynamicEngine}.
+ * <p>Every identifier maps to a {@link DynamicEvent} constant and can be used as an array
+ * or bit index.
+ *
+ * @see DynamicEngineUtils#getEventId(String)
+ * @see DynamicEngineUtils#getEvent(int)
+ */
+@Retention(RetentionPolicy.SOURCE)
+public @interface DynamicEventId {
+
+    /**
+     * Constant for no event.
+     *
+     * @see DynamicEvent#NONE
+     */
+    int NONE = -1;
+
+    /**
+     * Constant for the call event.
+     *
+     * @see DynamicEvent#CALL
+     */
+    int CALL = 0;
+
+    /**
+     * Constant for the lock event.
+     *
+     * @see DynamicEvent#LOCK
+     */
+    int LOCK = 1;
+
+    /**
+     * Constant for the headset event.
+     *
+     * @see DynamicEvent#HEADSET
+     */
+    int HEADSET = 2;
+
+    /**
+     * Constant for the charging event.
+     *
+     * @see DynamicEvent#CHARGING
+     */
+    int CHARGING = 3;
+
+    /**
+     * Constant for the dock event.
+     *
+     * @see DynamicEvent#DOCK
+     */
+    int DOCK = 4;
+
+    /**
+     * Constant for the app event.
+     *
+     * @see DynamicEvent#APP
+     */
+    int APP = 5;
+
+    /**
+     * Constant for the low battery event.
+     *
+     * @see DynamicEvent#BATTERY
+     */
+    int BATTERY = 6;
+
+    /**
+     * Number of the event identifiers excluding {@link #NONE}.
+     */
+    int COUNT = 7;
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pranavpandey.android.dynamic.engine.model;
+
+import com.pranavpandey.android.dynamic.engine.DynamicEngine;
+import com.pranavpandey.android.dynamic.engine.listener.DynamicEventListener;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Interest mask constants to subscribe a {@link DynamicEventListener} to the
+ * {@link DynamicEngine}.
+ * <p>Every constant maps to one or more listener callbacks and can be combined with the
+ * bitwise {@code OR} operator.
+ */
+@Retention(RetentionPolicy.SOURCE)
+public @interface DynamicEventMask {
+
+    /**
+     * Constant for no callback.
+     */
+    int NONE = 0;
+
+    /**
+     * Constant for the initialize callback.
+     *
+     * @see DynamicEventListener#onInitialize(boolean, boolean, boolean)
+     */
+    int INITIALIZE = 1;
+
+    /**
+     * Constant for the hinge state callback.
+     *
+     * @see DynamicEventListener#onHingeStateChange(int)
+     */
+    int HINGE = 1 << 1;
+
+    /**
+     * Constant for the call state callback.
+     *
+     * @see DynamicEventListener#onCallStateChange(boolean)
+     */
+    int CALL = 1 << 2;
+
+    /**
+     * Constant for the screen state callback.
+     *
+     * @see DynamicEventListener#onScreenStateChange(boolean)
+     */
+    int SCREEN = 1 << 3;
+
+    /**
+     * Constant for the lock state callback.
+     *
+     * @see DynamicEventListener#onLockStateChange(boolean)
+     */
+    int LOCK = 1 << 4;
+
+    /**
+     * Constant for the headset state callback.
+     *
+     * @see DynamicEventListener#onHeadsetStateChange(boolean)
+     */
+    int HEADSET = 1 << 5;
+
+    /**
+     * Constant for the charging state callback.
+     *
+     * @see DynamicEventListener#onChargingStateChange(boolean)
+     */
+    int CHARGING = 1 << 6;
+
+    /**
+     * Constant for the dock state callback.
+     *
+     * @see DynamicEventListener#onDockStateChange(boolean)
+     */
+    int DOCK = 1 << 7;
+
+    /**
+     * Constant for the app change callback.
+     *
+     * @see DynamicEventListener#onAppChange(DynamicAppInfo)
+     */
+    int APP = 1 << 8;
+
+    /**
+     * Constant for the highest priority event callback.
+     *
+     * @see DynamicEventListener#onHighestPriorityEventChange(String)
+     */
+    int PRIORITY = 1 << 9;
+
+    /**
+     * Constant for the package updated and removed callbacks.
+     *
+     * @see DynamicEventListener#onPackageUpdated(DynamicAppInfo, boolean)
+     * @see DynamicEventListener#onPackageRemoved(String)
+     */
+    int PACKAGE = 1 << 10;
+
+    /**
+     * Constant for the batched state change callback.
+     *
+     * @see DynamicEventListener#onStateChange(DynamicEngineState, DynamicEngineState)
+     */
+    int STATE = 1 << 11;
+
+    /**
+     * Constant for the low battery state callback.
+     *
+     * @see DynamicEventListener#onBatteryStateChange(boolean)
+     */
+    int BATTERY = 1 << 12;
+
+    /**
+     * Constant for all the callbacks.
+     */
+    int ALL = ~0;
+}
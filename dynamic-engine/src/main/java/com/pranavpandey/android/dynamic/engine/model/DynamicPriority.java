@@ -20,6 +20,7 @@ import android.content.Context;
 import android.content.SharedPreferences;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.preference.PreferenceManager;
 
 import com.pranavpandey.android.dynamic.util.DynamicDeviceUtils;
@@ -32,6 +33,9 @@ import java.util.List;
 /**
  * Helper class to manage priority of the different events in case two or more events will
  * occur simultaneously.
+ *
+ * <p>The saved priority is parsed once and cached for the whole process, it will be refreshed
+ * only when the preference is changed.
  */
 public class DynamicPriority {
 
@@ -54,12 +58,35 @@ public class DynamicPriority {
      * <p>{@code 4.} Charging
      * <p>{@code 5.} Dock
      * <p>{@code 6.} App (lowest)
+     * <p>The {@link DynamicEvent#BATTERY} event is opt-in and must be saved explicitly.
      */
     private static final String ADE_DEFAULT_EVENTS_PRIORITY = DynamicEvent.DOCK
             + ADE_PRIORITY_SPLIT + DynamicEvent.CHARGING + ADE_PRIORITY_SPLIT
             + DynamicEvent.HEADSET + ADE_PRIORITY_SPLIT + DynamicEvent.LOCK
             + ADE_PRIORITY_SPLIT + DynamicEvent.CALL;
 
+    /**
+     * Lock to load the cached events priority.
+     */
+    private static final Object LOCK = new Object();
+
+    /**
+     * Cached read-only events priority after the device check.
+     */
+    private static volatile List<String> sEventsPriority;
+
+    /**
+     * {@code true} if the device has the telephony functionality.
+     * <p>It will be checked only once and used for the device check.
+     */
+    private static volatile Boolean sTelephony;
+
+    /**
+     * Listener to refresh the cached events priority on preference change.
+     * <p>A strong reference is required as the shared preferences keep a weak reference to it.
+     */
+    private static SharedPreferences.OnSharedPreferenceChangeListener sPreferenceListener;
+
     /**
      * Get shared preferences of the app engine for a given context.
      *
@@ -79,6 +106,7 @@ public class DynamicPriority {
      * @see #ADE_DEFAULT_EVENTS_PRIORITY
      */
     public static void resetPriority(@NonNull Context context) {
+        sEventsPriority = parseEventsPriority(context, ADE_DEFAULT_EVENTS_PRIORITY);
         getSharedPreferences(context).edit().putString(
                 ADE_PREF_EVENTS_PRIORITY, ADE_DEFAULT_EVENTS_PRIORITY).apply();
     }
@@ -86,17 +114,19 @@ public class DynamicPriority {
     /**
      * Save the events priority.
      *
+     * <p>The supplied list will not be modified.
+     *
      * @param context The context to get shared preferences.
-     * @param eventsPriority The list containing events priority.
+     * @param eventsPriority The list containing events priority from the highest to the lowest.
      */
     public static void saveEventsPriority(@NonNull Context context,
             @NonNull List<String> eventsPriority) {
-        Collections.reverse(eventsPriority);
         StringBuilder priorities = new StringBuilder();
-        for (int i = 0; i < eventsPriority.size(); i++) {
+        for (int i = eventsPriority.size() - 1; i >= 0; i--) {
             priorities.append(eventsPriority.get(i)).append(ADE_PRIORITY_SPLIT);
         }
 
+        sEventsPriority = parseEventsPriority(context, priorities.toString());
         getSharedPreferences(context).edit().putString(
                 ADE_PREF_EVENTS_PRIORITY, priorities.toString()).apply();
     }
@@ -116,20 +146,66 @@ public class DynamicPriority {
     /**
      * Get the saved events priority after checking the device for telephony and per app
      * functionality.
+     * <p>It returns a cached read-only list which will be refreshed on preference change,
+     * copy it to make any modifications.
      *
      * @param context The context to get shared preferences.
      *
-     * @return The saved events priority.
+     * @return The saved events priority from the lowest to the highest.
      */
     public static @NonNull List<String> getEventsPriority(@NonNull Context context) {
-        String eventsPriority = getSharedPreferences(context).getString(
-                ADE_PREF_EVENTS_PRIORITY, ADE_DEFAULT_EVENTS_PRIORITY);
+        List<String> eventsPriority = sEventsPriority;
+        if (eventsPriority != null) {
+            return eventsPriority;
+        }
+
+        synchronized (LOCK) {
+            if (sEventsPriority == null) {
+                final Context appContext = context.getApplicationContext() != null
+                        ? context.getApplicationContext() : context;
+                SharedPreferences sharedPreferences = getSharedPreferences(appContext);
+
+                if (sPreferenceListener == null) {
+                    sPreferenceListener =
+                            new SharedPreferences.OnSharedPreferenceChangeListener() {
+                        @Override
+                        public void onSharedPreferenceChanged(
+                                SharedPreferences preferences, @Nullable String key) {
+                            if (key == null || ADE_PREF_EVENTS_PRIORITY.equals(key)) {
+                                sEventsPriority = parseEventsPriority(appContext,
+                                        preferences.getString(ADE_PREF_EVENTS_PRIORITY,
+                                                ADE_DEFAULT_EVENTS_PRIORITY));
+                            }
+                        }
+                    };
+                    sharedPreferences.registerOnSharedPreferenceChangeListener(
+                            sPreferenceListener);
+                }
+
+                sEventsPriority = parseEventsPriority(appContext, sharedPreferences.getString(
+                        ADE_PREF_EVENTS_PRIORITY, ADE_DEFAULT_EVENTS_PRIORITY));
+            }
+
+            return sEventsPriority;
+        }
+    }
+
+    /**
+     * Parse the events priority and return a read-only list after the device check.
+     *
+     * @param context The context to check the device.
+     * @param eventsPriority The string containing events priority.
+     *
+     * @return The read-only list of events priority after the device check.
+     */
+    private static @NonNull List<String> parseEventsPriority(@NonNull Context context,
+            @Nullable String eventsPriority) {
         if (eventsPriority == null) {
             eventsPriority = ADE_DEFAULT_EVENTS_PRIORITY;
         }
 
-        return returnAfterDeviceCheck(context,
-                new ArrayList<>(convertStringToArrayList(eventsPriority)));
+        return Collections.unmodifiableList(returnAfterDeviceCheck(context,
+                convertStringToArrayList(eventsPriority)));
     }
 
     /**
@@ -142,7 +218,7 @@ public class DynamicPriority {
      */
     private static @NonNull List<String> returnAfterDeviceCheck(@NonNull Context context,
             @NonNull List<String> eventsPriority) {
-        if (!DynamicDeviceUtils.hasTelephony(context)) {
+        if (!hasTelephony(context)) {
             eventsPriority.remove(DynamicEvent.CALL);
         }
 
@@ -153,6 +229,24 @@ public class DynamicPriority {
         return eventsPriority;
     }
 
+    /**
+     * Checks whether the device has the telephony functionality.
+     * <p>It will be checked only once and cached for the whole process.
+     *
+     * @param context The context to check the device.
+     *
+     * @return {@code true} if the device has the telephony functionality.
+     */
+    private static boolean hasTelephony(@NonNull Context context) {
+        Boolean telephony = sTelephony;
+        if (telephony == null) {
+            telephony = DynamicDeviceUtils.hasTelephony(context);
+            sTelephony = telephony;
+        }
+
+        return telephony;
+    }
+
     /**
      * Convert string to array list according to the priority splitter.
      * <p>It will be used for the easy retrieval.
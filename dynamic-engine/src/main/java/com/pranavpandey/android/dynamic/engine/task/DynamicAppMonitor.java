@@ -23,6 +23,9 @@ import android.app.usage.UsageStatsManager;
 import android.content.ComponentName;
 import android.content.Context;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
 import android.view.accessibility.AccessibilityEvent;
 
 import androidx.annotation.NonNull;
@@ -33,21 +36,28 @@ import androidx.core.content.ContextCompat;
 import com.pranavpandey.android.dynamic.engine.DynamicEngine;
 import com.pranavpandey.android.dynamic.engine.model.DynamicAppInfo;
 import com.pranavpandey.android.dynamic.engine.util.DynamicEngineUtils;
+import com.pranavpandey.android.dynamic.engine.util.DynamicForegroundResolver;
 import com.pranavpandey.android.dynamic.util.DynamicSdkUtils;
-import com.pranavpandey.android.dynamic.util.concurrent.DynamicResult;
-import com.pranavpandey.android.dynamic.util.concurrent.DynamicTask;
 
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * A {@link DynamicTask} to monitor foreground to provide app specific functionality.
+ * A task to monitor foreground to provide app specific functionality.
+ * <p>It runs on a {@link ScheduledExecutorService} which can be shared with other components
+ * and every poll is scheduled only after the previous one has been finished, so that two polls
+ * will never overlap.
  *
  * <p>Package must be granted {@link android.Manifest.permission#PACKAGE_USAGE_STATS}
  * permission to detect the foreground app on API 21 and above.
  */
 @RestrictTo(RestrictTo.Scope.LIBRARY_GROUP)
 @TargetApi(Build.VERSION_CODES.LOLLIPOP)
-public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
+public class DynamicAppMonitor {
 
     /**
      * Context constant for usage stats service.
@@ -57,26 +67,60 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
     private static final String ADE_USAGE_STATS = "usagestats";
 
     /**
-     * Default usage stats interval in milliseconds.
+     * The minimal period in milliseconds between two events.
      */
-    private static final long ADE_USAGE_STATS_INTERVAL = 2000L;
+    public static final long ADE_NOTIFICATION_TIMEOUT = 200L;
 
     /**
-     * The minimal period in milliseconds between two events.
+     * Default maximum period in milliseconds between two polls while the foreground package
+     * remains the same.
      */
-    public static final long ADE_NOTIFICATION_TIMEOUT = 200L;
+    public static final long ADE_MAX_POLL_INTERVAL = 1000L;
+
+    /**
+     * Factor to back off the poll interval while the foreground package remains the same.
+     */
+    private static final int ADE_POLL_BACKOFF_FACTOR = 2;
+
+    /**
+     * Default period in milliseconds to coalesce the accessibility events before resolving
+     * the foreground app.
+     */
+    public static final long ADE_CONFLATION_WINDOW = 50L;
 
     /**
      * Dynamic engine to initialize usage stats service.
      */
     @SuppressLint("StaticFieldLeak")
-    private DynamicEngine mDynamicEngine;
+    private final DynamicEngine mDynamicEngine;
+
+    /**
+     * Scheduler to run the polls and resolve the accessibility events.
+     */
+    private final ScheduledExecutorService mScheduler;
+
+    /**
+     * Handler to dispatch the foreground app on the main thread.
+     */
+    private final Handler mMainHandler;
 
     /**
      * {@code true} if this task is running.
      */
     private final AtomicBoolean mRunning = new AtomicBoolean();
 
+    /**
+     * Generation incremented on every start and stop, so that the result of a poll which
+     * was started in a previous run will be dropped.
+     */
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    /**
+     * Generation for which the foreground resolver has been reset.
+     * <p>It is accessed only by the poll on the scheduler.
+     */
+    private int mResolverGeneration;
+
     /**
      * {@code true} if this task is paused.
      */
@@ -87,11 +131,102 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
      */
     private final AtomicBoolean mDormant = new AtomicBoolean();
 
+    /**
+     * Lock to schedule the polls.
+     */
+    private final Object mLock = new Object();
+
+    /**
+     * The next scheduled poll.
+     * <p>It is {@code null} if there is no poll scheduled.
+     */
+    private ScheduledFuture<?> mPollFuture;
+
+    /**
+     * {@code true} if a poll is in progress.
+     */
+    private boolean mPolling;
+
+    /**
+     * {@code true} to schedule the next poll immediately after the ongoing poll.
+     */
+    private boolean mPollAgain;
+
+    /**
+     * Current period in milliseconds between two polls.
+     */
+    private volatile long mInterval = ADE_NOTIFICATION_TIMEOUT;
+
+    /**
+     * Maximum period in milliseconds between two polls.
+     */
+    private volatile long mMaxInterval = ADE_MAX_POLL_INTERVAL;
+
+    /**
+     * Number of polls issued by this task.
+     */
+    private final AtomicLong mPollCount = new AtomicLong();
+
+    /**
+     * Number of polls which found a change in the foreground app.
+     */
+    private final AtomicLong mPollChangeCount = new AtomicLong();
+
+    /**
+     * Lock to compare the foreground app before dispatching it on the main thread.
+     */
+    private final Object mDispatchLock = new Object();
+
+    /**
+     * Package name of the last dispatched foreground app.
+     */
+    private String mDispatchedPackage;
+
+    /**
+     * Class name of the top activity of the last dispatched foreground app.
+     */
+    private String mDispatchedClass;
+
+    /**
+     * Number of main thread posts avoided as the foreground app was not changed.
+     */
+    private final AtomicLong mSkippedDispatchCount = new AtomicLong();
+
     /**
      * Dynamic app info for the foreground package.
      */
     private DynamicAppInfo mDynamicAppInfo;
 
+    /**
+     * Lock to record the latest accessibility event.
+     */
+    private final Object mEventLock = new Object();
+
+    /**
+     * Package name of the latest accessibility event which is not yet resolved.
+     */
+    private String mEventPackage;
+
+    /**
+     * Class name of the latest accessibility event which is not yet resolved.
+     */
+    private String mEventClass;
+
+    /**
+     * {@code true} if an accessibility event is waiting to be resolved.
+     */
+    private boolean mEventPending;
+
+    /**
+     * Period in milliseconds to coalesce the accessibility events.
+     */
+    private volatile long mConflationWindow = ADE_CONFLATION_WINDOW;
+
+    /**
+     * Number of accessibility events superseded by a newer event before being resolved.
+     */
+    private final AtomicLong mDroppedEventCount = new AtomicLong();
+
     /**
      * Activity manager to detect foreground package activities.
      */
@@ -105,14 +240,100 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
      */
     private UsageStatsManager mUsageStatsManager;
 
+    /**
+     * Resolver to detect the foreground package incrementally on API 21 and above.
+     */
+    private DynamicForegroundResolver mForegroundResolver;
+
+    /**
+     * Runnable to poll the foreground app on the scheduler.
+     */
+    private final Runnable mPollTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (mLock) {
+                if (!isRunning() || isPaused() || isDormant()) {
+                    mPollFuture = null;
+                    return;
+                }
+
+                mPolling = true;
+                mPollAgain = false;
+            }
+
+            final int generation = mGeneration.get();
+            try {
+                if (generation != mResolverGeneration) {
+                    mResolverGeneration = generation;
+
+                    if (mForegroundResolver != null) {
+                        mForegroundResolver.reset();
+                    }
+                }
+
+                onPoll(dispatchAppInfo(getForegroundAppInfo(),
+                        getForegroundClass(), generation));
+            } catch (Exception ignored) {
+            } finally {
+                synchronized (mLock) {
+                    mPolling = false;
+                    mPollFuture = null;
+
+                    schedulePoll(mPollAgain ? 0 : getInterval());
+                }
+            }
+        }
+    };
+
+    /**
+     * Runnable to resolve the latest accessibility event on the scheduler.
+     */
+    private final Runnable mEventResolver = new Runnable() {
+        @Override
+        public void run() {
+            final int generation = mGeneration.get();
+            String packageName;
+            String className;
+
+            synchronized (mEventLock) {
+                packageName = mEventPackage;
+                className = mEventClass;
+                mEventPackage = null;
+                mEventClass = null;
+                mEventPending = false;
+            }
+
+            if (!isRunning() || packageName == null || className == null
+                    || mDynamicEngine.getActivityCache().resolve(packageName, className) == null) {
+                return;
+            }
+
+            dispatchAppInfo(mDynamicEngine.getAppInfoCache().getAppInfo(packageName),
+                    className, generation);
+        }
+    };
+
     /**
      * Constructor to initialize an object of this class.
      *
      * @param dynamicEngine The dynamic engine using which is using this task.
      */
-    @SuppressLint("WrongConstant")
     public DynamicAppMonitor(@NonNull DynamicEngine dynamicEngine) {
+        this(dynamicEngine, dynamicEngine.getScheduler());
+    }
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param dynamicEngine The dynamic engine using which is using this task.
+     * @param scheduler The scheduler to run the polls which can be shared with other components.
+     */
+    @SuppressLint("WrongConstant")
+    public DynamicAppMonitor(@NonNull DynamicEngine dynamicEngine,
+            @NonNull ScheduledExecutorService scheduler) {
         this.mDynamicEngine = dynamicEngine;
+        this.mScheduler = scheduler;
+        this.mMainHandler = new Handler(Looper.getMainLooper());
         this.mActivityManager = ContextCompat.getSystemService(
                 dynamicEngine, ActivityManager.class);
 
@@ -126,68 +347,176 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
                 this.mUsageStatsManager = (UsageStatsManager)
                         dynamicEngine.getSystemService(ADE_USAGE_STATS);
             }
+
+            if (mUsageStatsManager != null) {
+                this.mForegroundResolver = new DynamicForegroundResolver(mUsageStatsManager);
+            }
+        }
+    }
+
+    /**
+     * Start monitoring the foreground app.
+     */
+    public void start() {
+        synchronized (mLock) {
+            if (isRunning()) {
+                return;
+            }
+
+            mRunning.set(true);
+            mGeneration.incrementAndGet();
+            mDynamicAppInfo = null;
+            mInterval = ADE_NOTIFICATION_TIMEOUT;
+
+            synchronized (mDispatchLock) {
+                mDispatchedPackage = null;
+                mDispatchedClass = null;
+            }
+
+            schedulePoll(0);
         }
     }
 
-    @Override
-    protected void onPreExecute() {
-        super.onPreExecute();
+    /**
+     * Stop monitoring the foreground app.
+     * <p>It cancels the pending poll and returns immediately. The result of an ongoing poll
+     * will be dropped once it is finished.
+     */
+    public void stop() {
+        synchronized (mLock) {
+            if (!mRunning.getAndSet(false)) {
+                return;
+            }
+
+            mGeneration.incrementAndGet();
+            cancelPoll();
+        }
+
+        synchronized (mEventLock) {
+            mEventPackage = null;
+            mEventClass = null;
+            mEventPending = false;
+        }
 
+        final DynamicAppInfo dynamicAppInfo = mDynamicAppInfo;
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mDynamicEngine.notifyAppChange(dynamicAppInfo);
+            }
+        });
         mDynamicAppInfo = null;
     }
 
-    @Override
-    protected Void doInBackground(@Nullable Void params) {
-        while (isRunning()) {
-            try {
-                if (!isPaused() && !isDormant()) {
-                    publishProgress(new DynamicResult.Progress<>(getForegroundAppInfo()));
+    /**
+     * Schedule the next poll after the supplied delay.
+     * <p>It will replace the already scheduled poll or run again after the ongoing poll.
+     *
+     * @param delay The delay in milliseconds to schedule the next poll.
+     */
+    private void schedulePoll(long delay) {
+        synchronized (mLock) {
+            if (!isRunning() || isPaused() || isDormant()) {
+                return;
+            }
+
+            if (mPolling) {
+                if (delay == 0) {
+                    mPollAgain = true;
                 }
 
-                Thread.sleep(ADE_NOTIFICATION_TIMEOUT);
+                return;
+            }
+
+            cancelPoll();
+
+            try {
+                mPollFuture = mScheduler.schedule(mPollTask, delay, TimeUnit.MILLISECONDS);
             } catch (Exception ignored) {
             }
         }
-
-        return null;
     }
 
-    @Override
-    protected void onProgressUpdate(@Nullable DynamicResult<DynamicAppInfo> progress) {
-        super.onProgressUpdate(progress);
-
-        if (progress != null) {
-            if (progress.getData() != null && progress.getData().getPackageName() != null
-                    && (mDynamicAppInfo == null || !progress.getData().equals(mDynamicAppInfo))) {
-                mDynamicAppInfo = progress.getData();
-                mDynamicEngine.getSpecialEventListener().onAppChange(mDynamicAppInfo);
+    /**
+     * Cancel the scheduled poll if it has not been started yet.
+     */
+    private void cancelPoll() {
+        synchronized (mLock) {
+            if (mPollFuture != null) {
+                mPollFuture.cancel(false);
+                mPollFuture = null;
             }
         }
     }
 
-    @Override
-    protected void onPostExecute(@Nullable DynamicResult<Void> result) {
-        super.onPostExecute(result);
-
-        mDynamicAppInfo = null;
-        mDynamicEngine = null;
-    }
+    /**
+     * Dispatch the foreground app on the main thread if it has been changed.
+     * <p>It compares the package name and the top activity on the calling thread, so that
+     * the main thread will be used only if the foreground app has been changed.
+     *
+     * @param dynamicAppInfo The dynamic app info of the foreground package.
+     * @param className The class name of the top activity.
+     * @param generation The generation of this task when the foreground app was resolved.
+     *
+     * @return {@code true} if the foreground app has been changed and dispatched.
+     */
+    private boolean dispatchAppInfo(@Nullable DynamicAppInfo dynamicAppInfo,
+            @Nullable String className, final int generation) {
+        if (generation != mGeneration.get()) {
+            return false;
+        }
 
-    @Override
-    protected void onCancelled() {
-        super.onCancelled();
+        if (dynamicAppInfo == null || dynamicAppInfo.getPackageName() == null) {
+            mSkippedDispatchCount.incrementAndGet();
+            return false;
+        }
 
-        onProgressUpdate(new DynamicResult.Progress<>(null));
+        final String packageName = dynamicAppInfo.getPackageName();
+        synchronized (mDispatchLock) {
+            if (packageName.equals(mDispatchedPackage)
+                    && TextUtils.equals(className, mDispatchedClass)) {
+                mSkippedDispatchCount.incrementAndGet();
+                return false;
+            }
 
-        if (mDynamicEngine != null) {
-            mDynamicEngine.getSpecialEventListener().onAppChange(mDynamicAppInfo);
+            mDispatchedPackage = packageName;
+            mDispatchedClass = className;
         }
+
+        final DynamicAppInfo foregroundAppInfo = new DynamicAppInfo(dynamicAppInfo);
+        foregroundAppInfo.setTopActivity(className != null
+                ? new ComponentName(packageName, className) : null);
+
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isRunning() && generation == mGeneration.get()) {
+                    mDynamicAppInfo = foregroundAppInfo;
+                    mDynamicEngine.notifyAppChange(mDynamicAppInfo);
+                }
+            }
+        });
+
+        return true;
+    }
+
+    /**
+     * Get the number of main thread posts avoided as the foreground app was not changed.
+     *
+     * @return The number of main thread posts avoided as the foreground app was not changed.
+     */
+    public long getSkippedDispatchCount() {
+        return mSkippedDispatchCount.get();
     }
 
     /**
      * This method will be called to notify for the accessibility event.
+     * <p>It only records the latest event which will be resolved on the scheduler after the
+     * conflation window, any older event waiting to be resolved will be dropped.
      *
      * @param event The accessibility event.
+     *
+     * @see #setConflationWindow(long)
      */
     public void onAccessibilityEvent(@Nullable AccessibilityEvent event) {
         if (!isRunning() || isPaused() || event == null
@@ -195,29 +524,76 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
             return;
         }
 
-        if (DynamicEngineUtils.getActivityInfo(mDynamicEngine, new ComponentName(
-                event.getPackageName().toString(), event.getClassName().toString())) != null) {
-            onProgressUpdate(new DynamicResult.Progress<>(DynamicEngineUtils.getAppInfoFromPackage(
-                    mDynamicEngine, event.getPackageName().toString())));
+        boolean schedule;
+        synchronized (mEventLock) {
+            if (mEventPending) {
+                mDroppedEventCount.incrementAndGet();
+            }
+
+            mEventPackage = event.getPackageName().toString();
+            mEventClass = event.getClassName().toString();
+            schedule = !mEventPending;
+            mEventPending = true;
+        }
+
+        if (schedule) {
+            try {
+                mScheduler.schedule(mEventResolver,
+                        getConflationWindow(), TimeUnit.MILLISECONDS);
+            } catch (Exception ignored) {
+                synchronized (mEventLock) {
+                    mEventPending = false;
+                }
+            }
         }
     }
 
     /**
-     * Get the running status of this task.
+     * Get the period to coalesce the accessibility events.
      *
-     * @return {@code true} if this task is running.
+     * @return The period in milliseconds to coalesce the accessibility events.
      */
-    public boolean isRunning() {
-        return mRunning.get();
+    public long getConflationWindow() {
+        return mConflationWindow;
+    }
+
+    /**
+     * Set the period to coalesce the accessibility events before resolving the foreground app.
+     *
+     * @param conflationWindow The period in milliseconds to coalesce the accessibility events.
+     *
+     * @see #ADE_CONFLATION_WINDOW
+     */
+    public void setConflationWindow(long conflationWindow) {
+        this.mConflationWindow = Math.max(0, conflationWindow);
+    }
+
+    /**
+     * Get the number of accessibility events superseded by a newer event before being
+     * resolved.
+     *
+     * @return The number of dropped accessibility events.
+     */
+    public long getDroppedEventCount() {
+        return mDroppedEventCount.get();
     }
 
     /**
-     * Set the running status of this task.
+     * Get the scheduler used by this task.
      *
-     * @param running {@code true} if this task is running.
+     * @return The scheduler used by this task.
      */
-    public void setRunning(boolean running) {
-        mRunning.set(running);
+    public @NonNull ScheduledExecutorService getScheduler() {
+        return mScheduler;
+    }
+
+    /**
+     * Get the running status of this task.
+     *
+     * @return {@code true} if this task is running.
+     */
+    public boolean isRunning() {
+        return mRunning.get();
     }
 
     /**
@@ -231,11 +607,14 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
 
     /**
      * Set the paused status of this task.
+     * <p>The task will not poll while it is paused and will be resumed immediately.
      *
      * @param paused {@code true} if this task is paused.
      */
     public void setPaused(boolean paused) {
-        mPaused.set(paused);
+        if (mPaused.getAndSet(paused) != paused) {
+            onStateChanged(paused);
+        }
     }
 
     /**
@@ -249,11 +628,113 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
 
     /**
      * Set the dormant status of this task.
+     * <p>The task will not poll while it is dormant and will be resumed immediately.
      *
      * @param dormant {@code true} if this task is dormant.
      */
     public void setDormant(boolean dormant) {
-        mDormant.set(dormant);
+        if (mDormant.getAndSet(dormant) != dormant) {
+            onStateChanged(dormant);
+        }
+    }
+
+    /**
+     * Cancel or resume the polls after a change in the paused or dormant status.
+     *
+     * @param idle {@code true} if this task should not poll anymore.
+     */
+    private void onStateChanged(boolean idle) {
+        if (idle) {
+            cancelPoll();
+        } else {
+            resetInterval();
+        }
+    }
+
+    /**
+     * Get the current period between two polls.
+     *
+     * @return The current period in milliseconds between two polls.
+     */
+    public long getInterval() {
+        return mInterval;
+    }
+
+    /**
+     * Reset the poll interval to poll quickly after a change in the device state.
+     * <p>It will also schedule the next poll immediately.
+     */
+    public void resetInterval() {
+        mInterval = ADE_NOTIFICATION_TIMEOUT;
+
+        schedulePoll(0);
+    }
+
+    /**
+     * Get the maximum period between two polls.
+     *
+     * @return The maximum period in milliseconds between two polls.
+     */
+    public long getMaxInterval() {
+        return mMaxInterval;
+    }
+
+    /**
+     * Set the maximum period between two polls while the foreground package remains the same.
+     *
+     * @param maxInterval The maximum period in milliseconds between two polls.
+     *
+     * @see #ADE_MAX_POLL_INTERVAL
+     */
+    public void setMaxInterval(long maxInterval) {
+        this.mMaxInterval = Math.max(ADE_NOTIFICATION_TIMEOUT, maxInterval);
+        this.mInterval = Math.min(mInterval, mMaxInterval);
+    }
+
+    /**
+     * Get the number of polls issued by this task.
+     *
+     * @return The number of polls issued by this task.
+     */
+    public long getPollCount() {
+        return mPollCount.get();
+    }
+
+    /**
+     * Get the number of polls which found a change in the foreground app.
+     *
+     * @return The number of polls which found a change in the foreground app.
+     */
+    public long getPollChangeCount() {
+        return mPollChangeCount.get();
+    }
+
+    /**
+     * Update the poll counters and interval after polling the foreground app.
+     * <p>The interval will be reset on a change, otherwise it will back off towards the
+     * maximum interval.
+     *
+     * @param changed {@code true} if the poll found a change in the foreground app.
+     */
+    private void onPoll(boolean changed) {
+        mPollCount.incrementAndGet();
+
+        if (changed) {
+            mPollChangeCount.incrementAndGet();
+            mInterval = ADE_NOTIFICATION_TIMEOUT;
+        } else {
+            mInterval = Math.min(mInterval * ADE_POLL_BACKOFF_FACTOR, getMaxInterval());
+        }
+    }
+
+    /**
+     * Get the resolver to detect the foreground package on API 21 and above.
+     * <p>It can be used to exclude some packages like launchers from the foreground app.
+     *
+     * @return The resolver to detect the foreground package on API 21 and above.
+     */
+    public @Nullable DynamicForegroundResolver getForegroundResolver() {
+        return mForegroundResolver;
     }
 
     /**
@@ -280,18 +761,26 @@ public class DynamicAppMonitor extends DynamicTask<Void, DynamicAppInfo, Void> {
      * @return The dynamic app info from the foreground package name.
      */
     private @Nullable DynamicAppInfo getForegroundAppInfo() {
-        String packageName;
+        String packageName = null;
         if (DynamicSdkUtils.is21()) {
-            packageName = DynamicEngineUtils.getForegroundPackage(mUsageStatsManager,
-                    System.currentTimeMillis(), ADE_USAGE_STATS_INTERVAL);
+            if (mForegroundResolver != null) {
+                packageName = mForegroundResolver.resolve(System.currentTimeMillis(),
+                        Math.max(DynamicForegroundResolver.ADE_DEFAULT_INTERVAL,
+                                getInterval() + ADE_NOTIFICATION_TIMEOUT));
+            }
         } else {
             packageName = DynamicEngineUtils.getForegroundPackage(mActivityManager);
         }
 
-        if (packageName != null) {
-            return DynamicEngineUtils.getAppInfoFromPackage(mDynamicEngine, packageName);
-        }
+        return mDynamicEngine.getAppInfoCache().getAppInfo(packageName);
+    }
 
-        return null;
+    /**
+     * Retrieve the class name of the top activity for the foreground package.
+     *
+     * @return The class name of the top activity if available.
+     */
+    private @Nullable String getForegroundClass() {
+        return mForegroundResolver != null ? mForegroundResolver.getClassName() : null;
     }
 }
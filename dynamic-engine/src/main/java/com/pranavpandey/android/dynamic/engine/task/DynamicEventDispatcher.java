@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pranavpandey.android.dynamic.engine.task;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pranavpandey.android.dynamic.engine.DynamicEngine;
+import com.pranavpandey.android.dynamic.engine.listener.DynamicEventListener;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dispatcher to deliver the {@link DynamicEventListener} callbacks of the
+ * {@link DynamicEngine}.
+ * <p>The callbacks can be delivered inline on the thread which produced the event, on a
+ * dedicated {@link HandlerThread} or on a supplied {@link Executor}. The callbacks for a
+ * listener will always be delivered in order, even if the executor runs multiple threads.
+ */
+public class DynamicEventDispatcher {
+
+    /**
+     * Default name for the dedicated callback thread.
+     */
+    public static final String ADE_THREAD_NAME = "DynamicEngine-Callbacks";
+
+    /**
+     * Executor to run the callbacks, {@code null} to run them inline.
+     */
+    private final Executor mExecutor;
+
+    /**
+     * Dedicated callback thread, if any.
+     */
+    private final HandlerThread mHandlerThread;
+
+    /**
+     * Serial queues to keep the callbacks ordered for every listener.
+     */
+    private final Map<Object, SerialQueue> mQueues;
+
+    /**
+     * Number of the callbacks which are queued or running.
+     */
+    private final AtomicInteger mQueueDepth;
+
+    /**
+     * Maximum number of the callbacks which have been queued at once.
+     */
+    private final AtomicInteger mMaxQueueDepth;
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param executor The executor to run the callbacks, {@code null} to run them inline.
+     * @param handlerThread The dedicated callback thread, if any.
+     */
+    private DynamicEventDispatcher(@Nullable Executor executor,
+            @Nullable HandlerThread handlerThread) {
+        this.mExecutor = executor;
+        this.mHandlerThread = handlerThread;
+        this.mQueues = new WeakHashMap<>();
+        this.mQueueDepth = new AtomicInteger();
+        this.mMaxQueueDepth = new AtomicInteger();
+    }
+
+    /**
+     * Returns a dispatcher to deliver the callbacks inline on the thread which produced
+     * the event.
+     *
+     * @return The dispatcher to deliver the callbacks inline.
+     */
+    public static @NonNull DynamicEventDispatcher inline() {
+        return new DynamicEventDispatcher(null, null);
+    }
+
+    /**
+     * Returns a dispatcher to deliver the callbacks on a dedicated {@link HandlerThread}.
+     *
+     * @param name The name for the callback thread.
+     *
+     * @return The dispatcher to deliver the callbacks on a dedicated thread.
+     */
+    public static @NonNull DynamicEventDispatcher thread(@NonNull String name) {
+        HandlerThread handlerThread = new HandlerThread(name, Process.THREAD_PRIORITY_DEFAULT);
+        handlerThread.start();
+
+        final Handler handler = new Handler(handlerThread.getLooper());
+        return new DynamicEventDispatcher(new Executor() {
+            @Override
+            public void execute(@NonNull Runnable runnable) {
+                handler.post(runnable);
+            }
+        }, handlerThread);
+    }
+
+    /**
+     * Returns a dispatcher to deliver the callbacks on a supplied executor.
+     *
+     * @param executor The executor to run the callbacks.
+     *
+     * @return The dispatcher to deliver the callbacks on the supplied executor.
+     */
+    public static @NonNull DynamicEventDispatcher executor(@NonNull Executor executor) {
+        return new DynamicEventDispatcher(executor, null);
+    }
+
+    /**
+     * Dispatch a callback for a listener.
+     *
+     * @param listener The listener to keep the callbacks ordered.
+     * @param callback The callback to be delivered.
+     */
+    public void dispatch(@NonNull Object listener, @NonNull Runnable callback) {
+        int depth = mQueueDepth.incrementAndGet();
+        int maxDepth;
+        do {
+            maxDepth = mMaxQueueDepth.get();
+        } while (depth > maxDepth && !mMaxQueueDepth.compareAndSet(maxDepth, depth));
+
+        if (mExecutor == null) {
+            try {
+                callback.run();
+            } finally {
+                mQueueDepth.decrementAndGet();
+            }
+
+            return;
+        }
+
+        SerialQueue queue;
+        synchronized (mQueues) {
+            queue = mQueues.get(listener);
+
+            if (queue == null) {
+                queue = new SerialQueue();
+                mQueues.put(listener, queue);
+            }
+        }
+
+        queue.enqueue(callback);
+    }
+
+    /**
+     * Checks whether the callbacks are delivered inline.
+     *
+     * @return {@code true} if the callbacks are delivered inline.
+     */
+    public boolean isInline() {
+        return mExecutor == null;
+    }
+
+    /**
+     * Returns the number of the callbacks which are queued or running.
+     *
+     * @return The number of the callbacks which are queued or running.
+     */
+    public int getQueueDepth() {
+        return mQueueDepth.get();
+    }
+
+    /**
+     * Returns the maximum number of the callbacks which have been queued at once.
+     *
+     * @return The maximum number of the callbacks which have been queued at once.
+     */
+    public int getMaxQueueDepth() {
+        return mMaxQueueDepth.get();
+    }
+
+    /**
+     * Shutdown this dispatcher and quit the dedicated callback thread, if any.
+     * <p>The callbacks which are already queued will still be delivered.
+     */
+    public void shutdown() {
+        if (mHandlerThread != null) {
+            mHandlerThread.quitSafely();
+        }
+    }
+
+    /**
+     * Queue to run the callbacks of a listener one after another on the executor.
+     */
+    private class SerialQueue implements Runnable {
+
+        /**
+         * Callbacks waiting to be delivered.
+         */
+        private final ArrayDeque<Runnable> mCallbacks = new ArrayDeque<>();
+
+        /**
+         * {@code true} if this queue has been submitted to the executor.
+         */
+        private boolean mActive;
+
+        /**
+         * Add a callback to this queue and submit it to the executor if required.
+         *
+         * @param callback The callback to be added.
+         */
+        void enqueue(@NonNull Runnable callback) {
+            synchronized (this) {
+                mCallbacks.add(callback);
+
+                if (mActive) {
+                    return;
+                }
+
+                mActive = true;
+            }
+
+            try {
+                mExecutor.execute(this);
+            } catch (Exception e) {
+                synchronized (this) {
+                    mQueueDepth.addAndGet(-mCallbacks.size());
+                    mCallbacks.clear();
+                    mActive = false;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable callback;
+                synchronized (this) {
+                    callback = mCallbacks.poll();
+
+                    if (callback == null) {
+                        mActive = false;
+                        return;
+                    }
+                }
+
+                try {
+                    callback.run();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    mQueueDepth.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pranavpandey.android.dynamic.engine.task;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pranavpandey.android.dynamic.engine.DynamicEngine;
+import com.pranavpandey.android.dynamic.engine.listener.DynamicStatePredicate;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEngineState;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future to wait for a {@link DynamicEngine} state which matches a predicate.
+ * <p>It will be completed by the state transitions of the engine, so the waiting threads
+ * will be parked without using any CPU. It will be completed with {@code null} if the
+ * timeout has been elapsed or the engine has been destroyed.
+ */
+public class DynamicStateFuture implements Future<DynamicEngineState> {
+
+    /**
+     * Predicate to test the engine state.
+     */
+    private final DynamicStatePredicate mPredicate;
+
+    /**
+     * Latch to park the waiting threads until this future is completed.
+     */
+    private final CountDownLatch mLatch;
+
+    /**
+     * The matched engine state.
+     */
+    private volatile DynamicEngineState mState;
+
+    /**
+     * {@code true} if this future has been completed.
+     */
+    private boolean mDone;
+
+    /**
+     * {@code true} if this future has been cancelled.
+     */
+    private volatile boolean mCancelled;
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param predicate The predicate to test the engine state.
+     */
+    public DynamicStateFuture(@NonNull DynamicStatePredicate predicate) {
+        this.mPredicate = predicate;
+        this.mLatch = new CountDownLatch(1);
+    }
+
+    /**
+     * Test the engine state and complete this future if it matches the predicate.
+     *
+     * @param state The engine state to be tested.
+     *
+     * @return {@code true} if this future is done and can be discarded.
+     */
+    public boolean offer(@NonNull DynamicEngineState state) {
+        if (isDone()) {
+            return true;
+        }
+
+        return mPredicate.test(state) && complete(state);
+    }
+
+    /**
+     * Complete this future with an engine state.
+     *
+     * @param state The engine state to complete this future.
+     *              <p>{@code null} if the timeout has been elapsed.
+     *
+     * @return {@code true} if this future is done and can be discarded.
+     */
+    public synchronized boolean complete(@Nullable DynamicEngineState state) {
+        if (!mDone) {
+            mDone = true;
+            mState = state;
+            mLatch.countDown();
+        }
+
+        return true;
+    }
+
+    /**
+     * Wait until this future is completed.
+     *
+     * @param timeout The maximum time to wait in milliseconds.
+     *                <p>{@code 0} or less to wait until it is completed.
+     *
+     * @return The matched engine state, or {@code null} if the timeout has been elapsed.
+     *
+     * @throws InterruptedException If the current thread has been interrupted while waiting.
+     */
+    public @Nullable DynamicEngineState await(long timeout) throws InterruptedException {
+        if (timeout > 0) {
+            if (!mLatch.await(timeout, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } else {
+            mLatch.await();
+        }
+
+        return mState;
+    }
+
+    @Override
+    public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+        if (mDone) {
+            return false;
+        }
+
+        mCancelled = true;
+        return complete(null);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return mCancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return mDone;
+    }
+
+    @Override
+    public @Nullable DynamicEngineState get() throws InterruptedException {
+        mLatch.await();
+
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+
+        return mState;
+    }
+
+    @Override
+    public @Nullable DynamicEngineState get(long timeout, @NonNull TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+        if (!mLatch.await(timeout, unit)) {
+            throw new TimeoutException();
+        }
+
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+
+        return mState;
+    }
+}
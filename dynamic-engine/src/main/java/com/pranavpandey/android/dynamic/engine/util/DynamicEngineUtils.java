@@ -25,6 +25,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.os.Build;
 
@@ -33,6 +34,8 @@ import androidx.annotation.Nullable;
 
 import com.pranavpandey.android.dynamic.engine.DynamicEngine;
 import com.pranavpandey.android.dynamic.engine.model.DynamicAppInfo;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEvent;
+import com.pranavpandey.android.dynamic.engine.model.DynamicEventId;
 import com.pranavpandey.android.dynamic.util.DynamicSdkUtils;
 
 /**
@@ -60,13 +63,71 @@ public class DynamicEngineUtils {
     /**
      * Android package name.
      */
-    private static final String PACKAGE_ANDROID = "android";
+    static final String PACKAGE_ANDROID = "android";
 
     /**
      * Constant for the unknown event type.
      */
     private static final int EVENT_UNKNOWN = -1;
 
+    /**
+     * Events indexed by their identifiers.
+     *
+     * @see DynamicEventId
+     */
+    private static final String[] EVENTS = new String[] { DynamicEvent.CALL,
+            DynamicEvent.LOCK, DynamicEvent.HEADSET, DynamicEvent.CHARGING,
+            DynamicEvent.DOCK, DynamicEvent.APP, DynamicEvent.BATTERY };
+
+    /**
+     * Returns the integer identifier for an event.
+     *
+     * @param event The event to get the identifier.
+     *
+     * @return The integer identifier for the event.
+     *         <p>{@link DynamicEventId#NONE} if the event is unknown.
+     */
+    public static @DynamicEventId int getEventId(@DynamicEvent @Nullable String event) {
+        if (event == null) {
+            return DynamicEventId.NONE;
+        }
+
+        switch (event) {
+            case DynamicEvent.CALL:
+                return DynamicEventId.CALL;
+            case DynamicEvent.LOCK:
+                return DynamicEventId.LOCK;
+            case DynamicEvent.HEADSET:
+                return DynamicEventId.HEADSET;
+            case DynamicEvent.CHARGING:
+                return DynamicEventId.CHARGING;
+            case DynamicEvent.DOCK:
+                return DynamicEventId.DOCK;
+            case DynamicEvent.APP:
+                return DynamicEventId.APP;
+            case DynamicEvent.BATTERY:
+                return DynamicEventId.BATTERY;
+            default:
+                return DynamicEventId.NONE;
+        }
+    }
+
+    /**
+     * Returns the event for an integer identifier.
+     *
+     * @param eventId The identifier to get the event.
+     *
+     * @return The event for the integer identifier.
+     *         <p>{@link DynamicEvent#NONE} if the identifier is unknown.
+     */
+    public static @DynamicEvent @NonNull String getEvent(@DynamicEventId int eventId) {
+        if (eventId < 0 || eventId >= EVENTS.length) {
+            return DynamicEvent.NONE;
+        }
+
+        return EVENTS[eventId];
+    }
+
     /**
      * Returns activity info from the component name.
      *
@@ -90,6 +151,8 @@ public class DynamicEngineUtils {
 
     /**
      * Load dynamic app info from the package name.
+     * <p>Only the label and flags will be retained and the application info will be loaded
+     * lazily when requested.
      *
      * @param context The context to get {@link PackageManager}.
      * @param packageName The package name to build the dynamic app info.
@@ -101,15 +164,13 @@ public class DynamicEngineUtils {
         if (packageName != null) {
             DynamicAppInfo dynamicAppInfo = new DynamicAppInfo();
             try {
-                dynamicAppInfo.setApplicationInfo(
-                        context.getPackageManager().getApplicationInfo(
-                                packageName, PackageManager.GET_META_DATA));
+                PackageManager packageManager = context.getPackageManager();
+                ApplicationInfo applicationInfo =
+                        packageManager.getApplicationInfo(packageName, 0);
 
                 dynamicAppInfo.setPackageName(packageName);
-                if (dynamicAppInfo.getApplicationInfo() != null) {
-                    dynamicAppInfo.setLabel(dynamicAppInfo.getApplicationInfo().
-                            loadLabel(context.getPackageManager()).toString());
-                }
+                dynamicAppInfo.setFlags(applicationInfo.flags);
+                dynamicAppInfo.setLabel(applicationInfo.loadLabel(packageManager).toString());
             } catch (Exception ignored) {
             }
 
@@ -138,6 +199,65 @@ public class DynamicEngineUtils {
         return intentFilter;
     }
 
+    /**
+     * Returns the intent filter to register the screen and user present events.
+     *
+     * @return The intent filter to register a broadcast receiver which can listen screen
+     *         and user present events of the {@link DynamicEngine}.
+     */
+    public static @NonNull IntentFilter getScreenIntentFilter() {
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(Intent.ACTION_USER_PRESENT);
+        intentFilter.addAction(Intent.ACTION_SCREEN_ON);
+        intentFilter.addAction(Intent.ACTION_SCREEN_OFF);
+
+        return intentFilter;
+    }
+
+    /**
+     * Returns the intent filter to register the charging event.
+     *
+     * @return The intent filter to register a broadcast receiver which can listen charging
+     *         events of the {@link DynamicEngine}.
+     */
+    public static @NonNull IntentFilter getChargingIntentFilter() {
+        IntentFilter intentFilter = new IntentFilter();
+        intentFilter.addAction(Intent.ACTION_POWER_CONNECTED);
+        intentFilter.addAction(Intent.ACTION_POWER_DISCONNECTED);
+
+        return intentFilter;
+    }
+
+    /**
+     * Returns the intent filter to register the headset event.
+     *
+     * @return The intent filter to register a broadcast receiver which can listen headset
+     *         events of the {@link DynamicEngine}.
+     */
+    public static @NonNull IntentFilter getHeadsetIntentFilter() {
+        return new IntentFilter(Intent.ACTION_HEADSET_PLUG);
+    }
+
+    /**
+     * Returns the intent filter to register the dock event.
+     *
+     * @return The intent filter to register a broadcast receiver which can listen dock
+     *         events of the {@link DynamicEngine}.
+     */
+    public static @NonNull IntentFilter getDockIntentFilter() {
+        return new IntentFilter(Intent.ACTION_DOCK_EVENT);
+    }
+
+    /**
+     * Returns the intent filter to register the battery level event.
+     *
+     * @return The intent filter to register a broadcast receiver which can listen battery
+     *         level events of the {@link DynamicEngine}.
+     */
+    public static @NonNull IntentFilter getBatteryIntentFilter() {
+        return new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+    }
+
     /**
      * Returns the intent filter to register the call event.
      *
@@ -187,7 +307,7 @@ public class DynamicEngineUtils {
     }
 
     /**
-     * Retrieve the foreground package.
+     * Retrieve the foreground package from the newest foreground event.
      *
      * @param usageStatsManager The usage stats manager instance.
      * @param time The start time to get the recent apps.
@@ -215,8 +335,6 @@ public class DynamicEngineUtils {
                     if (event.getEventType() == getForegroundEventType()
                             && !PACKAGE_ANDROID.equals(event.getPackageName())) {
                         packageName = event.getPackageName();
-
-                        break;
                     }
                 }
             }
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.pranavpandey.android.dynamic.engine.util;
+
+import android.annotation.TargetApi;
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.os.Build;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.pranavpandey.android.dynamic.util.DynamicSdkUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Helper class to resolve the foreground package incrementally by using the usage events.
+ * <p>It remembers the last consumed event and only queries the new events since then,
+ * so that every event will be consumed only once. The events sharing the timestamp of the
+ * last consumed event are identified by their type, package and class, so that none of
+ * them will be dropped. The whole slice is streamed into a single reusable event without
+ * any allocation and only the newest foreground event will be retained.
+ *
+ * <p>It should be used from a single thread and requires the
+ * {@link android.Manifest.permission#PACKAGE_USAGE_STATS} permission on API 21 and above.
+ */
+@TargetApi(Build.VERSION_CODES.Q)
+public class DynamicForegroundResolver {
+
+    /**
+     * Default interval in milliseconds for a full query.
+     */
+    public static final long ADE_DEFAULT_INTERVAL = 2000L;
+
+    /**
+     * Overlap in milliseconds with the previous query to include the events which have been
+     * reported late by the system.
+     */
+    private static final long ADE_CURSOR_OVERLAP = 200L;
+
+    /**
+     * Maximum number of the events remembered at the timestamp of the last consumed event.
+     * <p>Any other event at that timestamp will be consumed again by the next query which
+     * is harmless as the same foreground event will be resolved.
+     */
+    private static final int ADE_BOUNDARY_CAPACITY = 8;
+
+    /**
+     * Usage stats manager to query the usage events.
+     */
+    private final UsageStatsManager mUsageStatsManager;
+
+    /**
+     * Event instance reused to read the usage events.
+     */
+    private final UsageEvents.Event mEvent;
+
+    /**
+     * Packages which will never be resolved as the foreground package.
+     */
+    private volatile Set<String> mExclusions;
+
+    /**
+     * End time of the last query.
+     */
+    private long mQueryTime;
+
+    /**
+     * Timestamp of the last consumed event.
+     */
+    private long mEventTime;
+
+    /**
+     * Types of the events consumed at the timestamp of the last consumed event, so that the
+     * other events sharing the same timestamp will still be consumed by the next query.
+     */
+    private final int[] mBoundaryTypes = new int[ADE_BOUNDARY_CAPACITY];
+
+    /**
+     * Packages of the events consumed at the timestamp of the last consumed event.
+     */
+    private final String[] mBoundaryPackages = new String[ADE_BOUNDARY_CAPACITY];
+
+    /**
+     * Classes of the events consumed at the timestamp of the last consumed event.
+     */
+    private final String[] mBoundaryClasses = new String[ADE_BOUNDARY_CAPACITY];
+
+    /**
+     * Number of the events consumed at the timestamp of the last consumed event.
+     */
+    private int mBoundaryCount;
+
+    /**
+     * The last resolved foreground package.
+     */
+    private String mPackageName;
+
+    /**
+     * Class name of the last resolved foreground event.
+     */
+    private String mClassName;
+
+    /**
+     * Timestamp of the last resolved foreground event.
+     */
+    private long mForegroundTime;
+
+    /**
+     * Constructor to initialize an object of this class.
+     *
+     * @param usageStatsManager The usage stats manager to query the usage events.
+     */
+    public DynamicForegroundResolver(@NonNull UsageStatsManager usageStatsManager) {
+        this.mUsageStatsManager = usageStatsManager;
+        this.mEvent = new UsageEvents.Event();
+        this.mExclusions = Collections.singleton(DynamicEngineUtils.PACKAGE_ANDROID);
+    }
+
+    /**
+     * Resolve the foreground package by querying the new events since the last query.
+     * <p>It will fall back to a full query if there is a gap of more than the supplied interval
+     * since the last query. For example, if the device was in doze or the task was paused.
+     *
+     * @param time The end time to query the events.
+     * @param interval The interval for a full query.
+     *
+     * @return The package name of the newest foreground event, or the last resolved one if
+     *         there is no new foreground event.
+     */
+    public @Nullable String resolve(long time, long interval) {
+        if (!DynamicSdkUtils.is21()) {
+            return null;
+        }
+
+        long begin;
+        if (mQueryTime <= 0 || time < mQueryTime || time - mQueryTime > interval) {
+            begin = time - interval;
+            mEventTime = 0;
+            mBoundaryCount = 0;
+        } else {
+            begin = Math.max(mEventTime, mQueryTime - ADE_CURSOR_OVERLAP);
+        }
+
+        try {
+            UsageEvents usageEvents = mUsageStatsManager.queryEvents(begin, time);
+            final int eventType = DynamicEngineUtils.getForegroundEventType();
+            final Set<String> exclusions = mExclusions;
+            final long cursor = mEventTime;
+
+            if (usageEvents != null) {
+                while (usageEvents.hasNextEvent()) {
+                    usageEvents.getNextEvent(mEvent);
+
+                    final long timeStamp = mEvent.getTimeStamp();
+                    if (timeStamp < cursor) {
+                        continue;
+                    }
+
+                    if (timeStamp == cursor && isBoundaryEvent(mEvent)) {
+                        continue;
+                    }
+
+                    if (timeStamp > mEventTime) {
+                        mEventTime = timeStamp;
+                        mBoundaryCount = 0;
+                    }
+                    addBoundaryEvent(mEvent);
+
+                    if (mEvent.getEventType() == eventType
+                            && mEvent.getPackageName() != null
+                            && !exclusions.contains(mEvent.getPackageName())) {
+                        mPackageName = mEvent.getPackageName();
+                        mClassName = mEvent.getClassName();
+                        mForegroundTime = mEventTime;
+                    }
+                }
+            }
+
+            mQueryTime = time;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        return mPackageName;
+    }
+
+    /**
+     * Checks whether an event has already been consumed at the timestamp of the last
+     * consumed event.
+     *
+     * @param event The event to be checked.
+     *
+     * @return {@code true} if the event has already been consumed.
+     */
+    private boolean isBoundaryEvent(@NonNull UsageEvents.Event event) {
+        for (int i = 0; i < mBoundaryCount; i++) {
+            if (mBoundaryTypes[i] == event.getEventType()
+                    && TextUtils.equals(mBoundaryPackages[i], event.getPackageName())
+                    && TextUtils.equals(mBoundaryClasses[i], event.getClassName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Remember an event consumed at the timestamp of the last consumed event.
+     *
+     * @param event The consumed event.
+     */
+    private void addBoundaryEvent(@NonNull UsageEvents.Event event) {
+        if (mBoundaryCount < ADE_BOUNDARY_CAPACITY) {
+            mBoundaryTypes[mBoundaryCount] = event.getEventType();
+            mBoundaryPackages[mBoundaryCount] = event.getPackageName();
+            mBoundaryClasses[mBoundaryCount] = event.getClassName();
+            mBoundaryCount++;
+        }
+    }
+
+    /**
+     * Reset the state so that the next resolution will perform a full query.
+     */
+    public void reset() {
+        mQueryTime = 0;
+        mEventTime = 0;
+        mBoundaryCount = 0;
+        mPackageName = null;
+        mClassName = null;
+        mForegroundTime = 0;
+    }
+
+    /**
+     * Returns the last resolved foreground package.
+     *
+     * @return The last resolved foreground package.
+     */
+    public @Nullable String getPackageName() {
+        return mPackageName;
+    }
+
+    /**
+     * Returns the class name of the last resolved foreground event.
+     *
+     * @return The class name of the last resolved foreground event.
+     */
+    public @Nullable String getClassName() {
+        return mClassName;
+    }
+
+    /**
+     * Returns the timestamp of the last resolved foreground event.
+     *
+     * @return The timestamp of the last resolved foreground event.
+     */
+    public long getForegroundTime() {
+        return mForegroundTime;
+    }
+
+    /**
+     * Returns the packages which will never be resolved as the foreground package.
+     *
+     * @return The packages which will never be resolved as the foreground package.
+     */
+    public @NonNull Set<String> getExclusions() {
+        return mExclusions;
+    }
+
+    /**
+     * Set the packages which will never be resolved as the foreground package.
+     * <p>For example, launchers or the system UI. The {@code android} package will always
+     * be excluded.
+     *
+     * @param exclusions The packages to be excluded.
+     */
+    public void setExclusions(@Nullable Collection<String> exclusions) {
+        Set<String> packages = new HashSet<>();
+        packages.add(DynamicEngineUtils.PACKAGE_ANDROID);
+
+        if (exclusions != null) {
+            packages.addAll(exclusions);
+        }
+
+        this.mExclusions = Collections.unmodifiableSet(packages);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017-2024 Pranav Pandey
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.pranavpandey.android.dynamic.engine.util;
+
+import androidx.annotation.NonNull;
+
+import com.pranavpandey.android.dynamic.engine.model.DynamicHinge;
+
+/**
+ * Helper class to classify the hinge angle into a {@link DynamicHinge} state.
+ * <p>The angle range is divided into bands by the thresholds, every band includes its upper
+ * threshold and a hysteresis band is applied around every threshold, so that the state will
+ * not flap when the hinge is held near a threshold.
+ */
+public class DynamicHingeClassifier {
+
+    /**
+     * Default angle in degrees at or below which the hinge is collapsed.
+     */
+    public static final float ADE_COLLAPSED_ANGLE = 30f;
+
+    /**
+     * Default angle in degrees after which the hinge is flat.
+     */
+    public static final float ADE_FLAT_START_ANGLE = 150f;
+
+    /**
+     * Default angle in degrees after which the hinge is no longer flat.
+     */
+    public static final float ADE_FLAT_END_ANGLE = 210f;
+
+    /**
+     * Default angle in degrees after which the hinge is folded back and collapsed.
+     */
+    public static final float ADE_FOLDED_ANGLE = 270f;
+
+    /**
+     * Default hysteresis in degrees around every threshold.
+     */
+    public static final float ADE_HYSTERESIS = 10f;
+
+    /**
+     * Hinge state for every band between the thresholds.
+     */
+    private static final int[] BANDS = new int[] { DynamicHinge.COLLAPSED,
+            DynamicHinge.HALF_EXPANDED, DynamicHinge.FLAT,
+            DynamicHinge.HALF_EXPANDED, DynamicHinge.COLLAPSED };
+
+    /**
+     * Thresholds in degrees in ascending order.
+     */
+    private volatile float[] mThresholds;
+
+    /**
+     * Hysteresis in degrees around every threshold.
+     */
+    private volatile float mHysteresis;
+
+    /**
+     * Constructor to initialize an object of this class with the default thresholds.
+     */
+    public DynamicHingeClassifier() {
+        this.mThresholds = new float[] { ADE_COLLAPSED_ANGLE,
+                ADE_FLAT_START_ANGLE, ADE_FLAT_END_ANGLE, ADE_FOLDED_ANGLE };
+        this.mHysteresis = ADE_HYSTERESIS;
+    }
+
+    /**
+     * Classify a hinge angle into a hinge state.
+     * <p>The current state will be retained if the angle is still within the hysteresis
+     * band of its threshold.
+     *
+     * @param angle The hinge angle in degrees.
+     * @param current The current hinge state.
+     *
+     * @return The hinge state for the angle.
+     */
+    public @DynamicHinge int classify(float angle, @DynamicHinge int current) {
+        final float[] thresholds = mThresholds;
+        final float hysteresis = mHysteresis;
+
+        int band = 0;
+        while (band < thresholds.length && angle > thresholds[band]) {
+            band++;
+        }
+
+        if (BANDS[band] == current) {
+            return current;
+        }
+
+        if (band > 0 && BANDS[band - 1] == current
+                && angle - thresholds[band - 1] <= hysteresis) {
+            return current;
+        }
+
+        if (band < thresholds.length && BANDS[band + 1] == current
+                && thresholds[band] - angle < hysteresis) {
+            return current;
+        }
+
+        return BANDS[band];
+    }
+
+    /**
+     * Returns the thresholds in degrees.
+     *
+     * @return The collapsed, flat start, flat end and folded angles.
+     */
+    public @NonNull float[] getThresholds() {
+        return mThresholds.clone();
+    }
+
+    /**
+     * Set the thresholds in degrees.
+     *
+     * @param collapsed The angle at or below which the hinge is collapsed.
+     * @param flatStart The angle after which the hinge is flat.
+     * @param flatEnd The angle after which the hinge is no longer flat.
+     * @param folded The angle after which the hinge is folded back and collapsed.
+     */
+    public void setThresholds(float collapsed, float flatStart, float flatEnd, float folded) {
+        if (collapsed > flatStart || flatStart > flatEnd || flatEnd > folded) {
+            throw new IllegalArgumentException("Thresholds must be in ascending order.");
+        }
+
+        this.mThresholds = new float[] { collapsed, flatStart, flatEnd, folded };
+    }
+
+    /**
+     * Returns the hysteresis in degrees around every threshold.
+     *
+     * @return The hysteresis in degrees around every threshold.
+     */
+    public float getHysteresis() {
+        return mHysteresis;
+    }
+
+    /**
+     * Set the hysteresis in degrees around every threshold.
+     *
+     * @param hysteresis The hysteresis to be set.
+     */
+    public void setHysteresis(float hysteresis) {
+        this.mHysteresis = Math.max(0f, hysteresis);
+    }
+}